@@ -0,0 +1,109 @@
+import { query, get, run } from './index.js';
+
+// 变更日志轮询：所有实时推送连接共用一个定时器，只有在有订阅者时才查询数据库
+const POLL_INTERVAL = 500;
+export const CHANGE_BATCH_SIZE = 1000;
+
+const listeners = new Set();
+let timer = null;
+let polling = false;
+let lastVersion = 0;
+
+// 变更日志只保留最近几天，落后更久的客户端需要重新加载全部数据
+const RETENTION_DAYS = 7;
+const PRUNE_INTERVAL = 60 * 60 * 1000;
+
+//the newest version ever written; it is kept by AUTOINCREMENT even when the log has been pruned empty
+export async function latestVersion() {
+  const row = await get("SELECT seq as version FROM sqlite_sequence WHERE name = 'change_log'");
+  return row?.version ?? 0;
+}
+
+//whether every change after a version is still in the log, so a client at that version can catch up from it
+export async function isResumable(since) {
+  const row = await get('SELECT MIN(version) as oldest FROM change_log');
+  const latest = await latestVersion();
+  const oldest = row?.oldest ?? latest + 1;
+  // a version ahead of the log belongs to a database that was recreated
+  return since >= oldest - 1 && since <= latest;
+}
+
+//drop the changes older than the retention period; the deletes among them are the tombstones clients rely on,
+//which is why a client that fell further behind is told to reload
+export async function pruneChanges() {
+  const result = await run(
+    "DELETE FROM change_log WHERE changed_at < datetime('now', ?)", [`-${RETENTION_DAYS} days`]);
+  if (result.changes > 0) {
+    console.log(`已清理 ${result.changes} 条过期变更`);
+  }
+}
+
+setInterval(() => pruneChanges().catch(error => console.error('清理变更日志失败:', error)), PRUNE_INTERVAL).unref();
+
+//merge the changes of every row into its last one; an insert stays an insert when the row is updated afterwards
+export function coalesce(changes) {
+  const rows = new Map();
+  for (const change of changes) {
+    const key = `${change.entity}:${change.id}`;
+    const previous = rows.get(key);
+    const op = previous?.op === 'insert' && change.op !== 'delete' ? 'insert' : change.op;
+    rows.delete(key);
+    rows.set(key, { ...change, op });
+  }
+  return [...rows.values()];
+}
+
+//read the changes after a version, oldest first
+export async function readChanges(since, limit = CHANGE_BATCH_SIZE) {
+  return await query(
+    `SELECT version, entity, entity_id as id, op
+     FROM change_log
+     WHERE version > ?
+     ORDER BY version
+     LIMIT ?`, [since, limit]);
+}
+
+//read the new changes and hand them to every listener together with the version they follow
+const poll = async () => {
+  if (polling) return;
+  polling = true;
+  try {
+    let changes;
+    do {
+      changes = await readChanges(lastVersion);
+      if (changes.length === 0) break;
+      const after = lastVersion;
+      lastVersion = changes[changes.length - 1].version;
+      for (const listener of listeners) {
+        listener(changes, after);
+      }
+    } while (changes.length === CHANGE_BATCH_SIZE && listeners.size > 0);
+  } catch (error) {
+    console.error('读取变更日志失败:', error);
+  } finally {
+    polling = false;
+  }
+};
+
+//call listener(changes, after) with every batch of new changes; returns the function that unsubscribes
+export async function subscribe(listener) {
+  listeners.add(listener);
+  if (!timer) {
+    // hold the polls back until the version to start after is known
+    polling = true;
+    timer = setInterval(poll, POLL_INTERVAL);
+    try {
+      lastVersion = await latestVersion();
+    } finally {
+      polling = false;
+    }
+  }
+
+  return () => {
+    listeners.delete(listener);
+    if (listeners.size === 0 && timer) {
+      clearInterval(timer);
+      timer = null;
+    }
+  };
+}
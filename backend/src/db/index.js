@@ -714,9 +714,22 @@ async function initializeDatabase() {
     const schemaPath = path.join(process.cwd(), 'src', 'db', 'schema.sql');
     const schema = await fsPromises.readFile(schemaPath, 'utf-8');
     
+    // 全文搜索表是否已经存在，第一次创建时需要为已有数据建立索引
+    const ftsExists = await db.get(
+      "SELECT name FROM sqlite_master WHERE type = 'table' AND name = 'articles_fts'"
+    );
+
     // 执行建表语句
     await db.exec(schema);
 
+    if (!ftsExists) {
+      await db.exec(`
+        INSERT INTO articles_fts(articles_fts) VALUES ('rebuild');
+        INSERT INTO comments_fts(comments_fts) VALUES ('rebuild');
+      `);
+      console.log('全文搜索索引已建立');
+    }
+
     // 初始化默认用户
     for (const user of defaultUsers) {
       const existingUser = await db.get(
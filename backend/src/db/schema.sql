@@ -77,4 +77,104 @@ CREATE TABLE IF NOT EXISTS admin_users (
   user_id INTEGER PRIMARY KEY,
   role TEXT NOT NULL DEFAULT 'admin',
   FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
-); 
\ No newline at end of file
+);
+
+-- 管理后台列表按 (created_at, id) 游标分页
+CREATE INDEX IF NOT EXISTS idx_users_created_at ON users(created_at, id);
+CREATE INDEX IF NOT EXISTS idx_articles_created_at ON articles(created_at, id);
+CREATE INDEX IF NOT EXISTS idx_comments_created_at ON comments(created_at, id);
+
+-- 列表中每行的文章数、评论数按外键逐行统计
+CREATE INDEX IF NOT EXISTS idx_comments_article_id ON comments(article_id);
+CREATE INDEX IF NOT EXISTS idx_comments_user_id ON comments(user_id);
+CREATE INDEX IF NOT EXISTS idx_articles_author_id ON articles(author_id);
+
+-- 管理后台全文搜索：FTS5 外部内容表，trigram 分词支持任意子串（包括中文），由触发器保持同步
+CREATE VIRTUAL TABLE IF NOT EXISTS articles_fts USING fts5(
+  title, content, content='articles', content_rowid='id', tokenize='trigram'
+);
+
+CREATE TRIGGER IF NOT EXISTS articles_fts_insert AFTER INSERT ON articles BEGIN
+  INSERT INTO articles_fts(rowid, title, content) VALUES (new.id, new.title, new.content);
+END;
+
+CREATE TRIGGER IF NOT EXISTS articles_fts_delete AFTER DELETE ON articles BEGIN
+  INSERT INTO articles_fts(articles_fts, rowid, title, content) VALUES ('delete', old.id, old.title, old.content);
+END;
+
+CREATE TRIGGER IF NOT EXISTS articles_fts_update AFTER UPDATE OF title, content ON articles BEGIN
+  INSERT INTO articles_fts(articles_fts, rowid, title, content) VALUES ('delete', old.id, old.title, old.content);
+  INSERT INTO articles_fts(rowid, title, content) VALUES (new.id, new.title, new.content);
+END;
+
+CREATE VIRTUAL TABLE IF NOT EXISTS comments_fts USING fts5(
+  content, content='comments', content_rowid='id', tokenize='trigram'
+);
+
+CREATE TRIGGER IF NOT EXISTS comments_fts_insert AFTER INSERT ON comments BEGIN
+  INSERT INTO comments_fts(rowid, content) VALUES (new.id, new.content);
+END;
+
+CREATE TRIGGER IF NOT EXISTS comments_fts_delete AFTER DELETE ON comments BEGIN
+  INSERT INTO comments_fts(comments_fts, rowid, content) VALUES ('delete', old.id, old.content);
+END;
+
+CREATE TRIGGER IF NOT EXISTS comments_fts_update AFTER UPDATE OF content ON comments BEGIN
+  INSERT INTO comments_fts(comments_fts, rowid, content) VALUES ('delete', old.id, old.content);
+  INSERT INTO comments_fts(rowid, content) VALUES (new.id, new.content);
+END;
+
+-- 变更日志：管理后台的实时变更推送（/admin/events）从这里读取，由触发器写入，version 单调递增
+-- 评论和文章的增删也记录其所属文章和作者的更新，因为列表中显示的计数随之变化
+CREATE TABLE IF NOT EXISTS change_log (
+  version INTEGER PRIMARY KEY AUTOINCREMENT,
+  entity TEXT NOT NULL CHECK (entity IN ('user', 'article', 'comment')),
+  entity_id INTEGER NOT NULL,
+  op TEXT NOT NULL CHECK (op IN ('insert', 'update', 'delete')),
+  changed_at TEXT DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TRIGGER IF NOT EXISTS users_log_insert AFTER INSERT ON users BEGIN
+  INSERT INTO change_log(entity, entity_id, op) VALUES ('user', new.id, 'insert');
+END;
+
+-- 只记录管理后台列表中显示的字段，登录等操作不产生变更
+CREATE TRIGGER IF NOT EXISTS users_log_update
+AFTER UPDATE OF username, real_name, date_of_birth, bio, avatar_url, status, ban_reason, ban_expire_at ON users BEGIN
+  INSERT INTO change_log(entity, entity_id, op) VALUES ('user', new.id, 'update');
+END;
+
+CREATE TRIGGER IF NOT EXISTS users_log_delete AFTER DELETE ON users BEGIN
+  INSERT INTO change_log(entity, entity_id, op) VALUES ('user', old.id, 'delete');
+END;
+
+CREATE TRIGGER IF NOT EXISTS articles_log_insert AFTER INSERT ON articles BEGIN
+  INSERT INTO change_log(entity, entity_id, op) VALUES ('article', new.id, 'insert');
+  INSERT INTO change_log(entity, entity_id, op) SELECT 'user', new.author_id, 'update' WHERE new.author_id IS NOT NULL;
+END;
+
+-- 浏览量每次阅读都会变化，不记录，重新加载时刷新
+CREATE TRIGGER IF NOT EXISTS articles_log_update AFTER UPDATE OF title, content, status, author_id ON articles BEGIN
+  INSERT INTO change_log(entity, entity_id, op) VALUES ('article', new.id, 'update');
+END;
+
+CREATE TRIGGER IF NOT EXISTS articles_log_delete AFTER DELETE ON articles BEGIN
+  INSERT INTO change_log(entity, entity_id, op) VALUES ('article', old.id, 'delete');
+  INSERT INTO change_log(entity, entity_id, op) SELECT 'user', old.author_id, 'update' WHERE old.author_id IS NOT NULL;
+END;
+
+CREATE TRIGGER IF NOT EXISTS comments_log_insert AFTER INSERT ON comments BEGIN
+  INSERT INTO change_log(entity, entity_id, op) VALUES ('comment', new.id, 'insert');
+  INSERT INTO change_log(entity, entity_id, op) SELECT 'article', new.article_id, 'update' WHERE new.article_id IS NOT NULL;
+  INSERT INTO change_log(entity, entity_id, op) SELECT 'user', new.user_id, 'update' WHERE new.user_id IS NOT NULL;
+END;
+
+CREATE TRIGGER IF NOT EXISTS comments_log_update AFTER UPDATE OF content, article_id, user_id ON comments BEGIN
+  INSERT INTO change_log(entity, entity_id, op) VALUES ('comment', new.id, 'update');
+END;
+
+CREATE TRIGGER IF NOT EXISTS comments_log_delete AFTER DELETE ON comments BEGIN
+  INSERT INTO change_log(entity, entity_id, op) VALUES ('comment', old.id, 'delete');
+  INSERT INTO change_log(entity, entity_id, op) SELECT 'article', old.article_id, 'update' WHERE old.article_id IS NOT NULL;
+  INSERT INTO change_log(entity, entity_id, op) SELECT 'user', old.user_id, 'update' WHERE old.user_id IS NOT NULL;
+END;
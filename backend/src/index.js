@@ -54,7 +54,9 @@ app.use(cors({
     'Authorization',
     'X-Requested-With',
     'Accept',
-    'Origin'
+    'Origin',
+    'X-Timestamp-Format',
+    'Last-Event-ID'
   ]
 }));
 
@@ -0,0 +1,84 @@
+import crypto from 'crypto';
+import zlib from 'zlib';
+
+// 小于这个大小的 JSON 响应不压缩，压缩头的开销比节省的还多
+const MIN_COMPRESS_SIZE = 1024;
+
+//pick gzip or deflate from the Accept-Encoding header, or null for an uncompressed response
+const negotiateEncoding = (acceptEncoding = '') => {
+  const accepted = acceptEncoding
+    .split(',')
+    .map(part => part.trim().split(';'))
+    .filter(([, q]) => !q || parseFloat(q.split('=')[1]) > 0)
+    .map(([name]) => name.toLowerCase());
+
+  if (accepted.includes('gzip')) return 'gzip';
+  if (accepted.includes('deflate')) return 'deflate';
+  return null;
+};
+
+//strong ETag of a JSON text in the format Express uses, tagged with the encoding of a compressed response;
+//only the responses of this middleware get it, the rest of the app keeps the default weak ETags
+const strongEtag = (text, encoding) => {
+  const hash = crypto.createHash('sha1').update(text, 'utf8').digest('base64').substring(0, 27);
+  const tag = encoding ? `${hash}-${encoding}` : hash;
+  return `"${Buffer.byteLength(text, 'utf8').toString(16)}-${tag}"`;
+};
+
+//This middleware compresses JSON responses with gzip or deflate when the client accepts it.
+//The body is streamed through zlib instead of being compressed in one blocking call.
+export const compressJson = (req, res, next) => {
+  const json = res.json.bind(res);
+
+  res.json = (body) => {
+    const encoding = negotiateEncoding(req.headers['accept-encoding']);
+    const text = JSON.stringify(body);
+    if (!encoding || Buffer.byteLength(text) < MIN_COMPRESS_SIZE) {
+      //res.send keeps an ETag that is already set and still answers a fresh request with 304
+      res.set('ETag', strongEtag(text));
+      return json(body);
+    }
+
+    //the ETag is computed on the JSON text and tagged with the encoding, so 304s keep working
+    res.set('ETag', strongEtag(text, encoding));
+    res.vary('Accept-Encoding');
+
+    if (req.fresh) {
+      return res.status(304).end();
+    }
+
+    res.set('Content-Type', 'application/json; charset=utf-8');
+    res.set('Content-Encoding', encoding);
+    res.removeHeader('Content-Length');
+
+    const compressor = encoding === 'gzip' ? zlib.createGzip() : zlib.createDeflate();
+    compressor.on('error', (error) => {
+      console.error('压缩响应失败:', error);
+      res.destroy(error);
+    });
+    compressor.pipe(res);
+    compressor.end(text);
+    return res;
+  };
+
+  next();
+};
+
+//Open a compressed stream for a response that is written in parts, e.g. section by section.
+//Returns the zlib stream piped into the response, or the response itself when the client accepts no encoding.
+//The caller flushes the zlib stream after every part, so that the client can decode it before the next one.
+export const openCompressedStream = (req, res) => {
+  const encoding = negotiateEncoding(req.headers['accept-encoding']);
+  res.vary('Accept-Encoding');
+  if (!encoding) return res;
+
+  res.set('Content-Encoding', encoding);
+  res.removeHeader('Content-Length');
+  const compressor = encoding === 'gzip' ? zlib.createGzip() : zlib.createDeflate();
+  compressor.on('error', (error) => {
+    console.error('压缩响应失败:', error);
+    res.destroy(error);
+  });
+  compressor.pipe(res);
+  return compressor;
+};
@@ -1,6 +1,8 @@
 import express from 'express';
 import { query, get, run, transaction } from '../db/index.js';
 import { authMiddleware, isAdmin } from '../middleware/auth.js';
+import { compressJson, openCompressedStream } from '../middleware/compress.js';
+import { subscribe, readChanges, latestVersion, isResumable, coalesce, CHANGE_BATCH_SIZE } from '../db/changes.js';
 import path from 'path';
 import fs from 'fs';
 
@@ -9,12 +11,163 @@ const router = express.Router();
 //use the middleware
 router.use(authMiddleware);
 router.use(isAdmin);
+router.use(compressJson);
 
-//get all users
-router.get('/users', async (req, res) => {
+//admin data must always be revalidated; unchanged responses come back as 304 via the ETag
+router.use((req, res, next) => {
+  res.set('Cache-Control', 'private, no-cache');
+  next();
+});
+
+//clients that send X-Timestamp-Format: epoch-millis get every timestamp as a number of milliseconds,
+//which is much cheaper to produce and to parse than the zh-CN locale string the others get
+const TIMESTAMP_FORMAT_HEADER = 'X-Timestamp-Format';
+const EPOCH_MILLIS = 'epoch-millis';
+
+//pick the timestamp formatter for a request; the formatter turns a raw created_at value into the sent value
+const timestampFormat = (req, res) => {
+  res.vary(TIMESTAMP_FORMAT_HEADER);
+  if (req.get(TIMESTAMP_FORMAT_HEADER) === EPOCH_MILLIS) {
+    res.set(TIMESTAMP_FORMAT_HEADER, EPOCH_MILLIS);
+    return (value) => value ? new Date(value).getTime() : null;
+  }
+  return (value) => value ? new Date(value).toLocaleString('zh-CN') : null;
+};
+
+//every list tells the version of the change log it was read at; the changes after it are not in the list yet,
+//so a client can keep the list current with /changes?since= instead of downloading it again
+const CHANGE_VERSION_HEADER = 'X-Change-Version';
+const markChangeVersion = async (res) => res.set(CHANGE_VERSION_HEADER, String(await latestVersion()));
+
+// 列表分页：按 (created_at, id) 倒序的 keyset 游标
+const MAX_PAGE_SIZE = 500;
+
+//clients that send Accept: application/x-ndjson get the rows of a list one per line, written and flushed in chunks,
+//so they can show the first rows while the rest is still arriving; such pages may be larger
+const NDJSON = 'application/x-ndjson';
+const NDJSON_CHUNK_ROWS = 500;
+const MAX_STREAM_PAGE_SIZE = 5000;
+
+//a streamed page sends its next cursor in a header, the body holds nothing but rows
+const NEXT_CURSOR_HEADER = 'X-Next-Cursor';
+
+const wantsNdjson = (req) => req.accepts(['json', NDJSON]) === NDJSON;
+
+//read ?limit= and ?cursor=. Returns null when the whole list is requested.
+const parsePage = (params, maxLimit = MAX_PAGE_SIZE) => {
+  if (params.limit === undefined) return null;
+
+  const limit = parseInt(params.limit);
+  if (isNaN(limit) || limit < 1) return { error: 'The limit must be a positive integer.' };
+
+  const page = { limit: Math.min(limit, maxLimit), after: null };
+  if (params.cursor) {
+    const [createdAt, id] = Buffer.from(String(params.cursor), 'base64url').toString('utf8').split('|');
+    if (!createdAt || isNaN(parseInt(id))) return { error: 'Invalid cursor.' };
+    page.after = { createdAt, id: parseInt(id) };
+  }
+  return page;
+};
+
+//the condition that continues a list after the cursor of the page; written as a row value so that
+//SQLite seeks the (created_at, id) index to the cursor instead of scanning it from the start
+const afterCursor = (alias, page) => {
+  if (!page?.after) return { sql: '', params: [] };
+  return {
+    sql: `AND (${alias}.created_at, ${alias}.id) < (?, ?)`,
+    params: [page.after.createdAt, page.after.id]
+  };
+};
+
+//?ids=1,2,3 restricts a list to some rows, e.g. the rows the change feed reported as changed
+const idsFilter = (alias, ids) => {
+  if (ids === undefined) return { sql: '', params: [] };
+  const list = String(ids).split(',').map(id => parseInt(id)).filter(id => !isNaN(id)).slice(0, MAX_PAGE_SIZE);
+  if (list.length === 0) return { sql: 'AND 0', params: [] };
+  return { sql: `AND ${alias}.id IN (${list.map(() => '?').join(',')})`, params: list };
+};
+
+//fetch one row more than the page size to know whether there is a next page
+const pageLimit = (page) => page ? `LIMIT ${page.limit + 1}` : '';
+
+//the cursor after the page cut out of the rows fetched with pageLimit, or null for the last page
+//the rows must still carry the raw created_at value as createdAt
+const nextCursorOf = (rows, page) => {
+  if (rows.length <= page.limit) return null;
+  const last = rows[page.limit - 1];
+  return Buffer.from(`${last.createdAt}|${last.id}`).toString('base64url');
+};
+
+//cut one page out of the rows fetched with pageLimit, as { items, nextCursor }
+const pageOf = (rows, page, format) => ({
+  items: rows.slice(0, page.limit).map(format),
+  nextCursor: nextCursorOf(rows, page)
+});
+
+//write one part of a streamed response; resolves once the stream can take more, rejects when the client is gone
+const writePart = (stream, res, text) => new Promise((resolve, reject) => {
+  if (res.destroyed) return reject(new Error('The client closed the connection.'));
+  const written = stream.write(text);
+  // a compressed part is held back by zlib until it is flushed
+  stream.flush?.();
+  if (written) return resolve();
+
+  const drained = () => {
+    res.off('close', closed);
+    resolve();
+  };
+  const closed = () => {
+    stream.off('drain', drained);
+    reject(new Error('The client closed the connection.'));
+  };
+  stream.once('drain', drained);
+  res.once('close', closed);
+});
+
+//stream the rows as NDJSON, a chunk of rows at a time so that formatting a large list never blocks for long
+const streamList = async (req, res, rows, page, format) => {
+  const listRows = page ? rows.slice(0, page.limit) : rows;
+  const nextCursor = page ? nextCursorOf(rows, page) : null;
+  if (nextCursor) res.set(NEXT_CURSOR_HEADER, nextCursor);
+  res.set('Content-Type', `${NDJSON}; charset=utf-8`);
+
+  const stream = openCompressedStream(req, res);
   try {
-    const users = await query(
-        `SELECT 
+    for (let i = 0; i < listRows.length; i += NDJSON_CHUNK_ROWS) {
+      const lines = listRows.slice(i, i + NDJSON_CHUNK_ROWS).map(row => `${JSON.stringify(format(row))}\n`);
+      await writePart(stream, res, lines.join(''));
+    }
+    stream.end();
+  } catch (error) {
+    // the client went away, nobody reads the rest
+    res.destroy();
+  }
+};
+
+//send the whole list as an array, or one page as { items, nextCursor }; or the rows as NDJSON when asked for
+const sendList = (req, res, rows, page, format) => {
+  res.vary('Accept');
+  if (wantsNdjson(req)) return streamList(req, res, rows, page, format);
+  if (!page) return res.json(rows.map(format));
+  res.json(pageOf(rows, page, format));
+};
+
+//the largest page a request may ask for
+const maxPageSize = (req) => wantsNdjson(req) ? MAX_STREAM_PAGE_SIZE : MAX_PAGE_SIZE;
+
+//read the users with their article and comment counts, or one page of them
+//the page is cut out of the (created_at, id) index first, and only its rows are counted
+const queryUsers = (page, idsParam) => {
+  const after = afterCursor('u', page);
+  const ids = idsFilter('u', idsParam);
+  return query(
+        `WITH listed AS (
+        SELECT u.id FROM users u
+        WHERE 1=1 ${after.sql} ${ids.sql}
+        ORDER BY u.created_at DESC, u.id DESC
+        ${pageLimit(page)}
+      )
+      SELECT 
         u.id, u.username, u.real_name as realName,
         u.date_of_birth as dateOfBirth, u.bio,
         u.avatar_url as avatarUrl,
@@ -22,26 +175,31 @@ router.get('/users', async (req, res) => {
         u.status,
         u.ban_reason as banReason,
         u.ban_expire_at as banExpireAt,
-        COUNT(DISTINCT a.id) as articleCount,
-        COUNT(DISTINCT c.id) as commentCount
-      FROM users u
-      LEFT JOIN articles a ON a.author_id = u.id
-      LEFT JOIN comments c ON c.user_id = u.id
-      GROUP BY u.id
-      ORDER BY u.created_at DESC`);
-
-      //format the data
-    const usersWithStats = users.map(user => 
-        ({
-      ...user,
-      createdAt: user.createdAt ? new Date(user.createdAt).toLocaleString('zh-CN') : '',
-      banExpireAt: user.banExpireAt ? new Date(user.banExpireAt).toLocaleString('zh-CN') : null,
-      hasAvatar: !!user.avatarUrl
-    })
-);
+        (SELECT COUNT(*) FROM articles a WHERE a.author_id = u.id) as articleCount,
+        (SELECT COUNT(*) FROM comments c WHERE c.user_id = u.id) as commentCount
+      FROM listed
+      JOIN users u ON u.id = listed.id
+      ORDER BY u.created_at DESC, u.id DESC`, [...after.params, ...ids.params]);
+};
+
+//format a user row for sending
+const formatUser = (timestamp) => user => ({
+  ...user,
+  createdAt: timestamp(user.createdAt) ?? '',
+  banExpireAt: timestamp(user.banExpireAt),
+  hasAvatar: !!user.avatarUrl
+});
 
-    res.json(usersWithStats);
+//get all users, or one page of them when ?limit= is given
+router.get('/users', async (req, res) => {
+  try {
+    const page = parsePage(req.query, maxPageSize(req));
+    if (page?.error) return res.status(400).json({ error: page.error });
+    const timestamp = timestampFormat(req, res);
+    await markChangeVersion(res);
 
+    const users = await queryUsers(page, req.query.ids);
+    await sendList(req, res, users, page, formatUser(timestamp));
   } catch (error) {
     res.status(500).json({ error: 'Fail to get users.' });
   }
@@ -202,65 +360,69 @@ router.delete('/users/:id', async (req, res) => {
   }
 });
 
+//read the statistics shown on the dashboard
+const readStats = async () => {
+  //the query function will always return an array
+  // userStats
+  const [userStats]=await query(`
+    SELECT 
+      COUNT(*) as totalUsers,
+      COUNT(CASE WHEN status = 'active' THEN 1 END) as activeUsers,
+      COUNT(CASE WHEN status = 'banned' THEN 1 END) as bannedUsers
+    FROM users`);
+
+  //articleStats
+  const [articleStats] = await query(`
+    SELECT 
+      COUNT(*) as totalArticles,
+      COUNT(CASE WHEN status = 'published' THEN 1 END) as publishedArticles,
+      COUNT(CASE WHEN status = 'pending' THEN 1 END) as pendingArticles,
+      SUM(view_count) as totalViews
+    FROM articles
+  `);
+
+  //commentStats
+  const [commentStats] = await query(`
+    SELECT 
+      COUNT(*) as totalComments,
+      COUNT(CASE WHEN visibility = 'visible' THEN 1 END) as visibleComments,
+      COUNT(CASE WHEN visibility = 'hidden' THEN 1 END) as hiddenComments
+    FROM comments
+  `);
+
+  // reactionStats
+  const [reactionStats] = await query(`
+    SELECT COUNT(*) as totalReactions
+    FROM article_reactions
+  `);
+
+  //format the stats
+  return {
+    users: {
+      total: Number(userStats.totalUsers),
+      active: Number(userStats.activeUsers),
+      banned: Number(userStats.bannedUsers)
+    },
+    articles: {
+      total: Number(articleStats.totalArticles),
+      published: Number(articleStats.publishedArticles),
+      pending: Number(articleStats.pendingArticles),
+      totalViews: Number(articleStats.totalViews || 0)
+    },
+    comments: {
+      total: Number(commentStats.totalComments),
+      visible: Number(commentStats.visibleComments),
+      hidden: Number(commentStats.hiddenComments)
+    },
+    reactions: {
+      total: Number(reactionStats.totalReactions)
+    }};
+};
+
 //get the statistics
 router.get('/stats', async (req, res) => {
   try {
-    //the query function will always return an array
-    // userStats
-    const [userStats]=await query(`
-      SELECT 
-        COUNT(*) as totalUsers,
-        COUNT(CASE WHEN status = 'active' THEN 1 END) as activeUsers,
-        COUNT(CASE WHEN status = 'banned' THEN 1 END) as bannedUsers
-      FROM users`);
-
-    //articleStats
-    const [articleStats] = await query(`
-      SELECT 
-        COUNT(*) as totalArticles,
-        COUNT(CASE WHEN status = 'published' THEN 1 END) as publishedArticles,
-        COUNT(CASE WHEN status = 'pending' THEN 1 END) as pendingArticles,
-        SUM(view_count) as totalViews
-      FROM articles
-    `);
-
-    //commentStats
-    const [commentStats] = await query(`
-      SELECT 
-        COUNT(*) as totalComments,
-        COUNT(CASE WHEN visibility = 'visible' THEN 1 END) as visibleComments,
-        COUNT(CASE WHEN visibility = 'hidden' THEN 1 END) as hiddenComments
-      FROM comments
-    `);
-
-    // reactionStats
-    const [reactionStats] = await query(`
-      SELECT COUNT(*) as totalReactions
-      FROM article_reactions
-    `);
-
-    //format the stats
-    res.json({
-      users: {
-        total: Number(userStats.totalUsers),
-        active: Number(userStats.activeUsers),
-        banned: Number(userStats.bannedUsers)
-      },
-      articles: {
-        total: Number(articleStats.totalArticles),
-        published: Number(articleStats.publishedArticles),
-        pending: Number(articleStats.pendingArticles),
-        totalViews: Number(articleStats.totalViews || 0)
-      },
-      comments: {
-        total: Number(commentStats.totalComments),
-        visible: Number(commentStats.visibleComments),
-        hidden: Number(commentStats.hiddenComments)
-      },
-      reactions: {
-        total: Number(reactionStats.totalReactions)
-      }});
-
+    res.json(await readStats());
   } catch (error) {
     res.status(500).json({ error: "Fail to get stats." });
   }
@@ -403,28 +565,44 @@ router.post('/users/:id/role', async (req, res) => {
 
 });
 
-// 获取所有文章
-router.get('/articles', async (req, res) => {
-  try {
-    const articles = await query(`
+// 查询文章及其评论数，带 page 时只查一页：先按索引取出这一页的 id，再只统计这些文章的评论数
+const queryArticles = (page, idsParam) => {
+  const after = afterCursor('a', page);
+  const ids = idsFilter('a', idsParam);
+  return query(`
+      WITH listed AS (
+        SELECT a.id FROM articles a
+        WHERE 1=1 ${after.sql} ${ids.sql}
+        ORDER BY a.created_at DESC, a.id DESC
+        ${pageLimit(page)}
+      )
       SELECT 
         a.id, a.title, SUBSTRING(a.content, 1, 200) as content,
         a.status, a.view_count as viewCount,
         a.created_at as createdAt,
         u.username as authorUsername,
-        COUNT(DISTINCT c.id) as commentCount
-      FROM articles a
+        (SELECT COUNT(*) FROM comments c WHERE c.article_id = a.id) as commentCount
+      FROM listed
+      JOIN articles a ON a.id = listed.id
       LEFT JOIN users u ON u.id = a.author_id
-      LEFT JOIN comments c ON c.article_id = a.id
-      GROUP BY a.id
-      ORDER BY a.created_at DESC`);
+      ORDER BY a.created_at DESC, a.id DESC`, [...after.params, ...ids.params]);
+};
 
-    const formattedArticles = articles.map(article => ({
-      ...article,
-      createdAt: new Date(article.createdAt).toLocaleString('zh-CN')
-    }));
+const formatArticle = (timestamp) => article => ({
+  ...article,
+  createdAt: timestamp(article.createdAt)
+});
 
-    res.json(formattedArticles);
+// 获取所有文章（带 ?limit= 时按游标分页）
+router.get('/articles', async (req, res) => {
+  try {
+    const page = parsePage(req.query, maxPageSize(req));
+    if (page?.error) return res.status(400).json({ error: page.error });
+    const timestamp = timestampFormat(req, res);
+    await markChangeVersion(res);
+
+    const articles = await queryArticles(page, req.query.ids);
+    await sendList(req, res, articles, page, formatArticle(timestamp));
   } catch (error) {
     res.status(500).json({ error: '获取文章列表失败' });
   }
@@ -457,26 +635,40 @@ router.delete('/articles/:id', async (req, res) => {
   }
 });
 
-// 获取所有评论
-router.get('/comments', async (req, res) => {
-  try {
-    const comments = await query(`
+// 查询评论及其作者和文章标题，带 page 时只查一页
+const queryComments = (page, idsParam) => {
+  const after = afterCursor('c', page);
+  const ids = idsFilter('c', idsParam);
+  return query(`
       SELECT 
         c.id, c.content,
         c.created_at as createdAt,
+        c.article_id as articleId,
         u.username as authorUsername,
         a.title as articleTitle
       FROM comments c
       LEFT JOIN users u ON u.id = c.user_id
       LEFT JOIN articles a ON a.id = c.article_id
-      ORDER BY c.created_at DESC`);
+      WHERE 1=1 ${after.sql} ${ids.sql}
+      ORDER BY c.created_at DESC, c.id DESC
+      ${pageLimit(page)}`, [...after.params, ...ids.params]);
+};
+
+const formatComment = (timestamp) => comment => ({
+  ...comment,
+  createdAt: timestamp(comment.createdAt)
+});
 
-    const formattedComments = comments.map(comment => ({
-      ...comment,
-      createdAt: new Date(comment.createdAt).toLocaleString('zh-CN')
-    }));
+// 获取所有评论（带 ?limit= 时按游标分页）
+router.get('/comments', async (req, res) => {
+  try {
+    const page = parsePage(req.query, maxPageSize(req));
+    if (page?.error) return res.status(400).json({ error: page.error });
+    const timestamp = timestampFormat(req, res);
+    await markChangeVersion(res);
 
-    res.json(formattedComments);
+    const comments = await queryComments(page, req.query.ids);
+    await sendList(req, res, comments, page, formatComment(timestamp));
   } catch (error) {
     res.status(500).json({ error: '获取评论列表失败' });
   }
@@ -502,4 +694,251 @@ router.delete('/comments/:id', async (req, res) => {
   }
 });
 
+// 首屏数据：统计和三个列表的第一页放在一个响应里依次推送，
+// 每一段查询完就立即写出，客户端读完一段就先显示一段，不用等最大的评论列表
+//get { version, stats, users, articles, comments }, each list as its first page of ?limit= rows
+router.get('/bootstrap', async (req, res) => {
+  const page = parsePage({ limit: req.query.limit ?? String(MAX_PAGE_SIZE) });
+  if (page.error) return res.status(400).json({ error: page.error });
+  const timestamp = timestampFormat(req, res);
+
+  let stream = null;
+  try {
+    // read before the lists, like the X-Change-Version of the list routes
+    const version = await latestVersion();
+    res.set(CHANGE_VERSION_HEADER, String(version));
+    res.set('Content-Type', 'application/json; charset=utf-8');
+    stream = openCompressedStream(req, res);
+
+    await writePart(stream, res, `{"version":${version}`);
+    await writePart(stream, res, `,"stats":${JSON.stringify(await readStats())}`);
+    const users = pageOf(await queryUsers(page), page, formatUser(timestamp));
+    await writePart(stream, res, `,"users":${JSON.stringify(users)}`);
+    const articles = pageOf(await queryArticles(page), page, formatArticle(timestamp));
+    await writePart(stream, res, `,"articles":${JSON.stringify(articles)}`);
+    const comments = pageOf(await queryComments(page), page, formatComment(timestamp));
+    await writePart(stream, res, `,"comments":${JSON.stringify(comments)}`);
+    stream.end('}');
+  } catch (error) {
+    console.error('加载首屏数据失败:', error);
+    if (!stream) return res.status(500).json({ error: 'Fail to load the dashboard.' });
+    // the sections already sent stay valid, the client sees the body break off and loads the rest on its own
+    res.destroy();
+  }
+});
+
+// 全文搜索：trigram 分词要求每个词至少 3 个字符，更短的词退回到 LIKE 扫描
+const SEARCH_LIMIT = 200;
+const MIN_TRIGRAM_LENGTH = 3;
+
+//split the query into words; each word is quoted so FTS5 treats it as plain text
+const searchTerms = (q) => String(q || '').trim().split(/\s+/).filter(Boolean);
+const ftsQuery = (terms) => terms.map(term => `"${term.replace(/"/g, '""')}"`).join(' ');
+const useFts = (terms) => terms.every(term => [...term].length >= MIN_TRIGRAM_LENGTH);
+const likeConditions = (terms, columns) => ({
+  where: terms.map(() => `(${columns.map(column => `${column} LIKE ? ESCAPE '\\'`).join(' OR ')})`).join(' AND '),
+  params: terms.flatMap(term => columns.map(() => `%${term.replace(/[\\%_]/g, '\\$&')}%`))
+});
+
+//search articles by title and content, or comments by content: ?q=&type=articles|comments&limit=
+router.get('/search', async (req, res) => {
+  try {
+    const terms = searchTerms(req.query.q);
+    const type = req.query.type;
+    if (terms.length === 0) return res.status(400).json({ error: 'The query must not be empty.' });
+    if (type !== 'articles' && type !== 'comments') {
+      return res.status(400).json({ error: 'The type must be articles or comments.' });
+    }
+    const limit = Math.min(parseInt(req.query.limit) || SEARCH_LIMIT, MAX_PAGE_SIZE);
+    const timestamp = timestampFormat(req, res);
+
+    let rows;
+    if (type === 'articles') {
+      const match = useFts(terms)
+        ? { from: 'articles_fts JOIN articles a ON a.id = articles_fts.rowid', where: 'articles_fts MATCH ?',
+            params: [ftsQuery(terms)], order: 'articles_fts.rank' }
+        : { from: 'articles a', ...likeConditions(terms, ['a.title', 'a.content']), order: 'a.created_at DESC' };
+
+      rows = await query(`
+        SELECT
+          a.id, a.title, SUBSTRING(a.content, 1, 200) as content,
+          a.status, a.view_count as viewCount,
+          a.created_at as createdAt,
+          u.username as authorUsername,
+          (SELECT COUNT(*) FROM comments c WHERE c.article_id = a.id) as commentCount
+        FROM ${match.from}
+        LEFT JOIN users u ON u.id = a.author_id
+        WHERE ${match.where}
+        ORDER BY ${match.order}
+        LIMIT ?`, [...match.params, limit]);
+    } else {
+      const match = useFts(terms)
+        ? { from: 'comments_fts JOIN comments c ON c.id = comments_fts.rowid', where: 'comments_fts MATCH ?',
+            params: [ftsQuery(terms)], order: 'comments_fts.rank' }
+        : { from: 'comments c', ...likeConditions(terms, ['c.content']), order: 'c.created_at DESC' };
+
+      rows = await query(`
+        SELECT
+          c.id, c.content,
+          c.created_at as createdAt,
+          c.article_id as articleId,
+          u.username as authorUsername,
+          a.title as articleTitle
+        FROM ${match.from}
+        LEFT JOIN users u ON u.id = c.user_id
+        LEFT JOIN articles a ON a.id = c.article_id
+        WHERE ${match.where}
+        ORDER BY ${match.order}
+        LIMIT ?`, [...match.params, limit]);
+    }
+
+    // 与列表分页相同的 { items, nextCursor } 结构，搜索结果只有一页；也可以按 NDJSON 逐行返回
+    const format = row => ({ ...row, createdAt: timestamp(row.createdAt) });
+    res.vary('Accept');
+    if (wantsNdjson(req)) return streamList(req, res, rows, null, format);
+    res.json({ items: rows.map(format), nextCursor: null });
+  } catch (error) {
+    console.error('搜索失败:', error);
+    res.status(500).json({ error: '搜索失败' });
+  }
+});
+
+// 增量同步：返回 ?since= 之后的变更，每行只保留最后一次变更，删除的行作为墓碑返回
+// 日志已清理到 since 之后时返回 reset，客户端需要重新加载全部数据
+const MAX_CHANGES = 5000;
+
+//get the changes after a version as { version, reset, more, changes }; version is where the next request continues
+router.get('/changes', async (req, res) => {
+  try {
+    const since = parseInt(req.query.since);
+    if (isNaN(since) || since < 0) {
+      return res.status(400).json({ error: 'The since version must be a non-negative integer.' });
+    }
+    const limit = Math.min(parseInt(req.query.limit) || MAX_CHANGES, MAX_CHANGES);
+
+    // read before the changes, so that the returned version never claims a change that was not read
+    const latest = await latestVersion();
+    if (!(await isResumable(since))) {
+      return res.json({ version: latest, reset: true, more: false, changes: [] });
+    }
+
+    const changes = await readChanges(since, limit);
+    const more = changes.length === limit;
+    const last = changes.length > 0 ? changes[changes.length - 1].version : since;
+    res.json({ version: more ? last : Math.max(latest, last), reset: false, more, changes: coalesce(changes) });
+  } catch (error) {
+    console.error('获取变更失败:', error);
+    res.status(500).json({ error: 'Fail to get changes.' });
+  }
+});
+
+// 实时变更推送：server-sent events，每个事件是一批变更，事件 id 是其中最后一条的 version
+// 断线重连时客户端带上 Last-Event-ID，从该版本之后继续推送，断线期间的变更不会丢失
+const HEARTBEAT_INTERVAL = 15000;
+const RECONNECT_DELAY = 3000;
+
+//the version a stream starts after: the Last-Event-ID of a reconnect, ?since=, or else the newest version.
+//A client that is further behind than the log reaches starts at the newest version and is told to reload.
+const streamStart = async (req) => {
+  const since = parseInt(req.get('Last-Event-ID') ?? req.query.since);
+  if (isNaN(since) || since < 0) return { since: await latestVersion(), reset: false };
+  if (!(await isResumable(since))) return { since: await latestVersion(), reset: true };
+  return { since, reset: false };
+};
+
+//stream the changes of users, articles and comments as { version, entity, id, op } batches
+router.get('/events', async (req, res) => {
+  let sent;
+  let reset;
+  try {
+    ({ since: sent, reset } = await streamStart(req));
+  } catch (error) {
+    return res.status(500).json({ error: 'Fail to open the change feed.' });
+  }
+
+  res.set({
+    'Content-Type': 'text/event-stream; charset=utf-8',
+    'Connection': 'keep-alive',
+    'X-Accel-Buffering': 'no'
+  });
+  res.flushHeaders();
+  res.write(`retry: ${RECONNECT_DELAY}\n\n`);
+  if (reset) {
+    res.write(`id: ${sent}\nevent: reset\ndata: {}\n\n`);
+  } else {
+    // the client resumes from here even if it disconnects before the first change
+    res.write(`id: ${sent}\n\n`);
+  }
+
+  let closed = false;
+  //whether the socket buffer is full; the stream then waits for 'drain' and reads what it missed from the log,
+  //so a slow client never makes the server buffer its changes
+  let blocked = false;
+  let pumping = false;
+  let pending = false;
+
+  //write one batch as one event
+  const send = (changes) => {
+    sent = changes[changes.length - 1].version;
+    blocked = !res.write(`id: ${sent}\nevent: changes\ndata: ${JSON.stringify(changes)}\n\n`);
+  };
+
+  //send everything after the last sent version from the log
+  const pump = async () => {
+    if (pumping) {
+      pending = true;
+      return;
+    }
+    pumping = true;
+    try {
+      let more = true;
+      while (more && !closed && !blocked) {
+        pending = false;
+        const changes = await readChanges(sent);
+        if (changes.length > 0 && !closed) send(changes);
+        // a full batch means the log has more, and new changes may have been announced while reading
+        more = changes.length === CHANGE_BATCH_SIZE || pending;
+      }
+    } catch (error) {
+      console.error('推送变更失败:', error);
+      res.end();
+    } finally {
+      pumping = false;
+    }
+  };
+
+  //an up to date stream sends the polled batch as it is, any other catches up from the log
+  const onChanges = (changes, after) => {
+    if (closed || blocked) return;
+    if (after === sent && !pumping) {
+      send(changes);
+    } else {
+      pump();
+    }
+  };
+
+  let unsubscribe = null;
+  const heartbeat = setInterval(() => {
+    if (!blocked) res.write(': ping\n\n');
+  }, HEARTBEAT_INTERVAL);
+  res.on('drain', () => {
+    blocked = false;
+    pump();
+  });
+  res.on('close', () => {
+    closed = true;
+    clearInterval(heartbeat);
+    unsubscribe?.();
+  });
+
+  try {
+    unsubscribe = await subscribe(onChanges);
+    if (closed) unsubscribe();
+  } catch (error) {
+    console.error('订阅变更失败:', error);
+    return res.end();
+  }
+  pump();
+});
+
 export { router as adminRouter }; 
\ No newline at end of file
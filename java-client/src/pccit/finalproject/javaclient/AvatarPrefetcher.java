@@ -0,0 +1,102 @@
+package pccit.finalproject.javaclient;
+
+import pccit.finalproject.javaclient.image.AvatarService;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.HierarchyEvent;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+
+import static pccit.finalproject.javaclient.config.Config.AVATAR_PREFETCH_ROWS;
+
+/**
+ * Prefetches the avatars of the rows visible in a table and of the next {@code AVATAR_PREFETCH_ROWS} rows,
+ * so that the detail panel can show them without waiting when a row is selected.
+ * Prefetches for rows that have been scrolled out of range before they started are cancelled.
+ */
+public class AvatarPrefetcher {
+
+    //wait until scrolling pauses before working out the visible rows
+    private static final int SCROLL_PAUSE_MILLIS = 100;
+
+    private final JTable table;
+    private final IntFunction<String> avatarUrlAt;
+    private final AvatarService avatars;
+    private final Timer timer;
+
+    //the prefetches that have been scheduled, by avatar url
+    private final Map<String, Future<?>> scheduled = new HashMap<>();
+
+    /**
+     * Constructor
+     * @param table the table, which must already be inside a scroll pane
+     * @param avatarUrlAt returns the avatar url of a row, called on the EDT
+     * @param avatars the service the avatars are loaded into
+     */
+    public AvatarPrefetcher(JTable table, IntFunction<String> avatarUrlAt, AvatarService avatars) {
+        this.table = table;
+        this.avatarUrlAt = avatarUrlAt;
+        this.avatars = avatars;
+        this.timer = new Timer(SCROLL_PAUSE_MILLIS, e -> prefetchVisibleRows());
+        this.timer.setRepeats(false);
+
+        JViewport viewport = (JViewport) SwingUtilities.getAncestorOfClass(JViewport.class, table);
+        if (viewport != null) {
+            // fires on scrolling, resizing and whenever rows are added
+            viewport.addChangeListener(e -> timer.restart());
+        }
+        table.addHierarchyListener(e -> {
+            if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0) {
+                timer.restart();
+            }
+        });
+    }
+
+    /**
+     * Prefetch the avatars of the visible rows and the rows below them,
+     * and cancel the prefetches for rows that are no longer in that range.
+     */
+    public void prefetchVisibleRows() {
+        Set<String> wanted = new LinkedHashSet<>();
+        if (table.isShowing() && table.getRowCount() > 0) {
+            Rectangle visible = table.getVisibleRect();
+            int first = Math.max(0, table.rowAtPoint(new Point(0, visible.y)));
+            int last = table.rowAtPoint(new Point(0, visible.y + visible.height - 1));
+            if (last < 0) {
+                // the rows do not fill the viewport
+                last = table.getRowCount() - 1;
+            }
+            last = Math.min(table.getRowCount() - 1, last + AVATAR_PREFETCH_ROWS);
+            for (int row = first; row <= last; row++) {
+                wanted.add(avatarUrlAt.apply(row));
+            }
+        }
+
+        boolean cancelled = false;
+        for (Iterator<Map.Entry<String, Future<?>>> it = scheduled.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, Future<?>> entry = it.next();
+            if (entry.getValue().isDone()) {
+                it.remove();
+            } else if (!wanted.contains(entry.getKey())) {
+                entry.getValue().cancel(false);
+                cancelled = true;
+                it.remove();
+            }
+        }
+        if (cancelled) {
+            avatars.purgePrefetches();
+        }
+
+        for (String avatarUrl : wanted) {
+            if (!scheduled.containsKey(avatarUrl) && avatars.getCached(avatarUrl) == null) {
+                scheduled.put(avatarUrl, avatars.prefetch(avatarUrl));
+            }
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package pccit.finalproject.javaclient;
 
+import pccit.finalproject.javaclient.codec.CodecRegistry;
+import pccit.finalproject.javaclient.concurrent.UiTaskScheduler;
+import pccit.finalproject.javaclient.concurrent.UiTaskScheduler.Lane;
 import pccit.finalproject.javaclient.view.LoginView;
 import javax.swing.*;
+import java.util.concurrent.CancellationException;
 
 /**
  * Initialize the Blog Manager application.
@@ -11,6 +15,7 @@ public class BlogManagerApp {
     private static JFrame mainFrame;
     private static BlogManagerView mainView;
     private static BlogManagerModel model;
+    private static BlogManagerAsyncModel asyncModel;
     private static BlogManagerController controller;
 
     /**
@@ -21,11 +26,17 @@ public class BlogManagerApp {
         SwingUtilities.invokeLater(() -> {
             // Create the model
             model = new BlogManagerModel();
+            asyncModel = new BlogManagerAsyncModel(model);
 
             // Show login window first
             LoginView loginView = new LoginView();
             loginView.addLoginListener(e -> handleLogin(loginView));
             loginView.setVisible(true);
+
+            // Build the JSON codecs while the user is typing their credentials
+            Thread warmUp = new Thread(CodecRegistry::warmUp, "codec-warm-up");
+            warmUp.setDaemon(true);
+            warmUp.start();
         });
     }
 
@@ -33,19 +44,22 @@ public class BlogManagerApp {
         String username = loginView.getUsernameField().getText();
         String password = new String(loginView.getPasswordField().getPassword());
 
-        if (model.sendLoginRequest(username, password)) {
-            // Login successful, close login window
-            loginView.dispose();
-
-            // Create and show main interface
-            SwingUtilities.invokeLater(() -> {
-                mainView = new BlogManagerView();
-                createAndShowMainGUI();
-                controller = new BlogManagerController(model, mainView);
-            });
-        } else {
-            loginView.setStatusText("Login failed. Please try again.");
-        }
+        // log in off the EDT, a repeated click replaces the pending attempt
+        loginView.setStatusText("Logging in...");
+        UiTaskScheduler.shared().submit(Lane.INTERACTIVE, loginView, () -> asyncModel.login(username, password))
+                .whenComplete((loggedIn, error) -> {
+                    if (Boolean.TRUE.equals(loggedIn)) {
+                        // Login successful, close login window
+                        loginView.dispose();
+
+                        // Create and show main interface
+                        mainView = new BlogManagerView();
+                        createAndShowMainGUI();
+                        controller = new BlogManagerController(model, mainView);
+                    } else if (!(error instanceof CancellationException)) {
+                        loginView.setStatusText("Login failed. Please try again.");
+                    }
+                });
     }
 
     /**
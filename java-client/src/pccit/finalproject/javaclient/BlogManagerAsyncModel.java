@@ -0,0 +1,287 @@
+package pccit.finalproject.javaclient;
+
+import pccit.finalproject.javaclient.concurrent.TaskExecutors;
+import pccit.finalproject.javaclient.model.*;
+import pccit.finalproject.javaclient.sync.ChangeSet;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static pccit.finalproject.javaclient.config.Config.CALL_DEADLINE_MILLIS;
+
+/**
+ * An asynchronous facade over {@link BlogManagerModel}.
+ * Every call runs on its own (virtual, when available) thread and returns a {@link CompletableFuture}.
+ * Cancelling the future, or missing its deadline, interrupts the running request.
+ * Use {@link pccit.finalproject.javaclient.concurrent.SwingExecutor} to handle the result on the EDT.
+ */
+public class BlogManagerAsyncModel {
+
+    //shared by every facade, the threads are cheap and created per call
+    private static final ExecutorService EXECUTOR = TaskExecutors.newPerTaskExecutor("blog-manager-call");
+
+    private final BlogManagerModel model;
+    private final Duration deadline;
+
+    /**
+     * Create a facade with the default deadline.
+     * @param model the blocking model the calls are delegated to
+     */
+    public BlogManagerAsyncModel(BlogManagerModel model) {
+        this(model, Duration.ofMillis(CALL_DEADLINE_MILLIS));
+    }
+
+    /**
+     * Create a facade with a custom deadline.
+     * @param model the blocking model the calls are delegated to
+     * @param deadline the time after which a call is cancelled and fails with a TimeoutException
+     */
+    public BlogManagerAsyncModel(BlogManagerModel model, Duration deadline) {
+        this.model = model;
+        this.deadline = deadline;
+    }
+
+    /**
+     * Get the blocking model behind this facade.
+     * @return the model
+     */
+    public BlogManagerModel getModel() {
+        return model;
+    }
+
+    /**
+     * Log in in the background.
+     * @param username The username.
+     * @param password The password.
+     * @return true if the login was successful
+     */
+    public CompletableFuture<Boolean> login(String username, String password) {
+        return call(m -> m.sendLoginRequest(username, password));
+    }
+
+    /**
+     * Log out in the background.
+     * @return true if the logout was successful
+     */
+    public CompletableFuture<Boolean> logout() {
+        return call(BlogManagerModel::sendLogoutRequest);
+    }
+
+    /**
+     * Get one page of users in the background.
+     * @param cursor The cursor returned with the previous page, or null for the first page.
+     * @return the page of users
+     */
+    public CompletableFuture<Page<User>> getUsersPage(String cursor) {
+        return call(m -> m.getUsersPage(cursor));
+    }
+
+    /**
+     * Get the site statistics in the background.
+     * @return the statistics, or null if they could not be loaded
+     */
+    public CompletableFuture<SiteStats> getSiteStats() {
+        return call(BlogManagerModel::getSiteStats);
+    }
+
+    /**
+     * Get one page of articles in the background.
+     * @param cursor The cursor returned with the previous page, or null for the first page.
+     * @return the page of articles
+     */
+    public CompletableFuture<Page<Article>> getArticlesPage(String cursor) {
+        return call(m -> m.getArticlesPage(cursor));
+    }
+
+    /**
+     * Get one page of comments in the background.
+     * @param cursor The cursor returned with the previous page, or null for the first page.
+     * @return the page of comments
+     */
+    public CompletableFuture<Page<Comment>> getCommentsPage(String cursor) {
+        return call(m -> m.getCommentsPage(cursor));
+    }
+
+    /**
+     * Search all articles on the server in the background.
+     * @param query The words to search for.
+     * @param rows Receives the best matching articles as soon as each one is decoded, on the background thread.
+     * @return completes when every match has been handed on
+     */
+    public CompletableFuture<Void> streamArticleSearch(String query, Consumer<Article> rows) {
+        return call(m -> {
+            m.streamArticleSearch(query, rows);
+            return null;
+        });
+    }
+
+    /**
+     * Search all comments on the server in the background.
+     * @param query The words to search for.
+     * @param rows Receives the best matching comments as soon as each one is decoded, on the background thread.
+     * @return completes when every match has been handed on
+     */
+    public CompletableFuture<Void> streamCommentSearch(String query, Consumer<Comment> rows) {
+        return call(m -> {
+            m.streamCommentSearch(query, rows);
+            return null;
+        });
+    }
+
+    /**
+     * Get the users with the given ids in the background.
+     * @param ids The ids.
+     * @return the users that still exist
+     */
+    public CompletableFuture<List<User>> getUsersByIds(int[] ids) {
+        return call(m -> m.getUsersByIds(ids));
+    }
+
+    /**
+     * Get the articles with the given ids in the background.
+     * @param ids The ids.
+     * @return the articles that still exist
+     */
+    public CompletableFuture<List<Article>> getArticlesByIds(int[] ids) {
+        return call(m -> m.getArticlesByIds(ids));
+    }
+
+    /**
+     * Get the comments with the given ids in the background.
+     * @param ids The ids.
+     * @return the comments that still exist
+     */
+    public CompletableFuture<List<Comment>> getCommentsByIds(int[] ids) {
+        return call(m -> m.getCommentsByIds(ids));
+    }
+
+    /**
+     * Stream a page of users in the background.
+     * @param cursor The cursor returned with the previous page.
+     * @param rows Receives every user as soon as it is decoded, on the background thread.
+     * @return the cursor of the next page, or null if this was the last page
+     */
+    public CompletableFuture<String> streamUsersPage(String cursor, Consumer<User> rows) {
+        return call(m -> m.streamUsersPage(cursor, rows));
+    }
+
+    /**
+     * Stream a page of articles in the background.
+     * @param cursor The cursor returned with the previous page.
+     * @param rows Receives every article as soon as it is decoded, on the background thread.
+     * @return the cursor of the next page, or null if this was the last page
+     */
+    public CompletableFuture<String> streamArticlesPage(String cursor, Consumer<Article> rows) {
+        return call(m -> m.streamArticlesPage(cursor, rows));
+    }
+
+    /**
+     * Stream a page of comments in the background.
+     * @param cursor The cursor returned with the previous page.
+     * @param rows Receives every comment as soon as it is decoded, on the background thread.
+     * @return the cursor of the next page, or null if this was the last page
+     */
+    public CompletableFuture<String> streamCommentsPage(String cursor, Consumer<Comment> rows) {
+        return call(m -> m.streamCommentsPage(cursor, rows));
+    }
+
+    /**
+     * Load the data the dashboard starts with in the background, see {@link BlogManagerModel#loadBootstrap}.
+     * @param bootstrap The sections to complete; those not read when the call fails, is cancelled or times out
+     *                  fail with it.
+     * @return completes when every section is complete
+     */
+    public CompletableFuture<Void> loadBootstrap(Bootstrap bootstrap) {
+        CompletableFuture<Void> result = call(m -> {
+            m.loadBootstrap(bootstrap);
+            return null;
+        });
+        result.whenComplete((ignored, error) -> {
+            if (error != null) {
+                bootstrap.fail(error);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Get what changed on the server after a version in the background.
+     * @param version The version to start after.
+     * @return the changes, or null if they could not be loaded
+     */
+    public CompletableFuture<ChangeSet> getChangesSince(long version) {
+        return call(m -> m.getChangesSince(version));
+    }
+
+    /**
+     * Delete a user in the background.
+     * @param id The id of the user.
+     * @return true if the user was deleted
+     */
+    public CompletableFuture<Boolean> deleteUser(int id) {
+        return call(m -> m.sendDeleteUserRequest(id));
+    }
+
+    /**
+     * Ban a user in the background.
+     * @param id The id of the user.
+     * @return true if the user was banned
+     */
+    public CompletableFuture<Boolean> banUser(int id) {
+        return call(m -> m.sendBanUserRequest(id));
+    }
+
+    /**
+     * Revalidate a user in the background.
+     * @param id The id of the user.
+     * @return true if the user was revalidated
+     */
+    public CompletableFuture<Boolean> revalidateUser(int id) {
+        return call(m -> m.sendRevalidateUserRequest(id));
+    }
+
+    /**
+     * Delete an article in the background.
+     * @param articleId The id of the article.
+     * @return true if the article was deleted
+     */
+    public CompletableFuture<Boolean> deleteArticle(int articleId) {
+        return call(m -> m.deleteArticle(articleId));
+    }
+
+    /**
+     * Delete a comment in the background.
+     * @param commentId The id of the comment.
+     * @return true if the comment was deleted
+     */
+    public CompletableFuture<Boolean> deleteComment(int commentId) {
+        return call(m -> m.deleteComment(commentId));
+    }
+
+    /**
+     * Run a model call in the background with the default deadline.
+     * @param operation the blocking call
+     * @return the future result of the call
+     */
+    public <T> CompletableFuture<T> call(Function<BlogManagerModel, T> operation) {
+        return call(operation, deadline);
+    }
+
+    /**
+     * Run a model call in the background.
+     * @param operation the blocking call
+     * @param deadline the time after which the call is cancelled and fails with a TimeoutException
+     * @return the future result of the call
+     */
+    public <T> CompletableFuture<T> call(Function<BlogManagerModel, T> operation, Duration deadline) {
+        // a cancelled or timed out call interrupts its thread, which aborts the HTTP request
+        CompletableFuture<T> result = TaskExecutors.supplyInterruptibly(() -> operation.apply(model), EXECUTOR);
+        result.orTimeout(deadline.toMillis(), TimeUnit.MILLISECONDS);
+        return result;
+    }
+}
@@ -6,11 +6,33 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import pccit.finalproject.javaclient.concurrent.SwingExecutor;
+import pccit.finalproject.javaclient.concurrent.UiTaskScheduler;
+import pccit.finalproject.javaclient.concurrent.UiTaskScheduler.Lane;
+import pccit.finalproject.javaclient.image.AvatarService;
 import pccit.finalproject.javaclient.model.*;
+import pccit.finalproject.javaclient.sync.Change;
+import pccit.finalproject.javaclient.sync.ChangeFeed;
+import pccit.finalproject.javaclient.sync.ChangeSet;
+import pccit.finalproject.javaclient.sync.SnapshotFile;
 import pccit.finalproject.javaclient.view.LoginView;
 
+import static pccit.finalproject.javaclient.config.Config.BACKEND_URL;
+
 /**
  * The controller for managing interactions between the BlogManagerView and BlogManagerModel.
  */
@@ -18,9 +40,46 @@ public class BlogManagerController {
 
     private final BlogManagerModel model;
     private final BlogManagerView view;
+
+    //runs the model calls in the background
+    private final BlogManagerAsyncModel asyncModel;
+
+    //orders the background work by priority, no network call runs on the EDT
+    private final UiTaskScheduler scheduler = UiTaskScheduler.shared();
     private ArticleTableModel articleTableModel;
     private CommentTableModel commentTableModel;
 
+    //the statistics shown on the stats cards, adjusted locally after each mutation
+    private SiteStats siteStats;
+
+    //load the following pages of each list while the user scrolls
+    private final PageLoader<User> userPages;
+    private final PageLoader<Article> articlePages;
+    private final PageLoader<Comment> commentPages;
+
+    //filter each table by the text typed into its filter field
+    private final TableFilter<User> userFilter;
+    private final TableFilter<Article> articleFilter;
+    private final TableFilter<Comment> commentFilter;
+
+    //applies the changes made on the server by anyone to the tables while they are shown
+    private final ChangeFeed changeFeed;
+
+    //the file the tables of this user are kept in between sessions
+    private final Path snapshotFile;
+
+    //number of loads of the current loadAllData round that are still running
+    private int runningLoads;
+
+    //whether another loadAllData round was requested while one was running
+    private boolean reloadRequested;
+
+    //whether the running round downloads the lists, rather than only the changes since they were loaded
+    private boolean fullLoad;
+
+    //whether the window was closed and the last snapshot is being written
+    private boolean closing;
+
     /**
      * Creates a new BlogManagerController.
      * @param model the model
@@ -29,6 +88,7 @@ public class BlogManagerController {
     public BlogManagerController(BlogManagerModel model, BlogManagerView view) {
         this.model = model;
         this.view = view;
+        this.asyncModel = new BlogManagerAsyncModel(model);
 
         // Set welcome message with username
         view.setWelcomeMessage(model.getCurrentUsername());
@@ -39,8 +99,73 @@ public class BlogManagerController {
         view.getArticlesTable().setModel(articleTableModel);
         view.getCommentsTable().setModel(commentTableModel);
 
-        // Load all data automatically
-        loadAllData();
+        // Filter the tables
+        userFilter = new TableFilter<>(view.getUserFilterField(),
+                user -> new String[]{user.getUsername(), user.getRealName(), user.getBio()}, User::getId);
+        articleFilter = new TableFilter<>(view.getArticleFilterField(),
+                article -> new String[]{article.getTitle(), article.getAuthorUsername()}, Article::getId);
+        commentFilter = new TableFilter<>(view.getCommentFilterField(),
+                comment -> new String[]{comment.getContent(), comment.getAuthorUsername(), comment.getArticleTitle()},
+                Comment::getId);
+
+        // Sort the tables by the clicked columns
+        new TableSorter(view.userTable);
+        new TableSorter(view.getArticlesTable());
+        new TableSorter(view.getCommentsTable());
+
+        // Load further pages on demand, showing their rows while they download, and keep only a window of them
+        userPages = new PageLoader<>(view.userTable,
+                (cursor, rows) -> scheduler.submit(Lane.BACKGROUND, () -> asyncModel.streamUsersPage(cursor, rows)),
+                userFilter, User::getId);
+        articlePages = new PageLoader<>(view.getArticlesTable(),
+                (cursor, rows) -> scheduler.submit(Lane.BACKGROUND, () -> asyncModel.streamArticlesPage(cursor, rows)),
+                articleFilter, Article::getId);
+        commentPages = new PageLoader<>(view.getCommentsTable(),
+                (cursor, rows) -> scheduler.submit(Lane.BACKGROUND, () -> asyncModel.streamCommentsPage(cursor, rows)),
+                commentFilter, Comment::getId);
+
+        // Search the server for articles and comments that have not been loaded yet
+        articleFilter.setRemoteSearch(asyncModel::streamArticleSearch, articlePages::hasMore);
+        commentFilter.setRemoteSearch(asyncModel::streamCommentSearch, commentPages::hasMore);
+
+        // Prefetch the avatars of the users around the visible rows
+        new AvatarPrefetcher(view.userTable,
+                row -> BlogManagerView.avatarUrlOf(view.userTableModel.getUserAt(row)), AvatarService.shared());
+
+        // Load the avatar of the selected user in the background
+        view.setAvatarRequestListener(this::loadAvatar);
+
+        // Follow the changes made on the server; opened before the first load so no change is missed in between
+        changeFeed = new ChangeFeed(model, this::applyChanges);
+        changeFeed.start();
+
+        // Show the tables of the last session at once, then load all data automatically
+        snapshotFile = SnapshotFile.pathFor(BACKEND_URL, model.getCurrentUsername());
+        restoreSnapshot();
+
+        // Keep the tables for the next session when the window is closed
+        Window window = SwingUtilities.getWindowAncestor(view);
+        if (window != null) {
+            // the application exits once the snapshot is written, not as soon as the window is closed
+            if (window instanceof JFrame) {
+                ((JFrame) window).setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
+            }
+            window.addWindowListener(new WindowAdapter() {
+                @Override
+                public void windowClosing(WindowEvent e) {
+                    if (closing) {
+                        return;
+                    }
+                    closing = true;
+                    changeFeed.stop();
+                    view.statusLabel.setText("Saving...");
+                    window.setEnabled(false);
+                    window.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+                    // the snapshot is written in the background, ahead of the work still queued for the tables
+                    saveSnapshot(Lane.INTERACTIVE).whenComplete((ignored, error) -> System.exit(0));
+                }
+            });
+        }
 
         // Add existing listeners
         addExistingListeners();
@@ -49,90 +174,263 @@ public class BlogManagerController {
         addNewListeners();
     }
 
+    /**
+     * Bring the statistics and the tables up to date. Once every table has been loaded, only the changes since
+     * the high-water mark of the model are fetched and applied; before that, or when the server no longer has
+     * those changes, the statistics and the first page of users, articles and comments are loaded with one
+     * streamed request, and each of them is shown as soon as its section has arrived.
+     * A call made while a previous round is still running is merged into a single follow-up round.
+     */
     private void loadAllData() {
-        // Load users
-        SwingWorker<List<User>, Void> userWorker = new SwingWorker<List<User>, Void>() {
-            @Override
-            protected List<User> doInBackground() {
-                return model.sendGetUsersRequest();
+        if (runningLoads > 0) {
+            reloadRequested = true;
+            return;
+        }
+        long highWaterMark = model.getHighWaterMark();
+        if (highWaterMark >= 0) {
+            syncChanges(highWaterMark);
+            return;
+        }
+        fullLoad = true;
+        runningLoads = 4;
+
+        // the four sections arrive one after another in one response, each is applied as soon as it is read
+        Bootstrap bootstrap = new Bootstrap();
+        scheduler.submit(Lane.BACKGROUND, () -> asyncModel.loadBootstrap(bootstrap)).whenComplete((ignored, error) -> {
+            if (error != null) {
+                // also when the task was cancelled before it started, so no section is left waiting
+                bootstrap.fail(error);
             }
+        });
 
-            @Override
-            protected void done() {
-                try {
-                    view.users = get();
-                    view.displayUserTable(view.users);
-                } catch (Exception e) {
-                    System.out.println("Unexpected error: " + e.getMessage());
+        bootstrap.getUsers().whenCompleteAsync((page, error) -> {
+            try {
+                if (page != null) {
+                    view.displayUserTable(page.getItems());
+                    userFilter.reset(view.userTableModel, page.getItems());
+                    userPages.reset(page);
+                } else {
+                    System.out.println("Unexpected error: " + error.getMessage());
                 }
+            } finally {
+                loadFinished();
             }
-        };
-        userWorker.execute();
-
-        // Load statistics
-        SwingWorker<SiteStats, Void> statsWorker = new SwingWorker<>() {
-            @Override
-            protected SiteStats doInBackground() {
-                return model.getSiteStats();
-            }
-
-            @Override
-            protected void done() {
-                try {
-                    SiteStats stats = get();
-                    if (stats != null) {
-                        view.updateStats(stats);
-                    }
-                } catch (Exception ex) {
-                    ex.printStackTrace();
+        }, SwingExecutor.INSTANCE);
+
+        bootstrap.getStats().whenCompleteAsync((stats, error) -> {
+            try {
+                if (stats != null) {
+                    siteStats = stats;
+                    view.updateStats(stats);
+                } else if (error != null) {
+                    error.printStackTrace();
                 }
+            } finally {
+                loadFinished();
             }
-        };
-        statsWorker.execute();
-
-        // Load articles
-        SwingWorker<List<Article>, Void> articleWorker = new SwingWorker<>() {
-            @Override
-            protected List<Article> doInBackground() {
-                return model.getAllArticles();
-            }
+        }, SwingExecutor.INSTANCE);
 
-            @Override
-            protected void done() {
-                try {
-                    List<Article> articles = get();
-                    articleTableModel = new ArticleTableModel(articles);
+        bootstrap.getArticles().whenCompleteAsync((page, error) -> {
+            try {
+                if (page != null) {
+                    articleTableModel = new ArticleTableModel(page.getItems());
                     view.getArticlesTable().setModel(articleTableModel);
+                    articleFilter.reset(articleTableModel, page.getItems());
+                    articlePages.reset(page);
                     view.getDeleteArticleButton().setEnabled(false);
                     view.getViewArticleButton().setEnabled(false);
-                } catch (Exception ex) {
-                    ex.printStackTrace();
+                } else {
+                    error.printStackTrace();
                 }
+            } finally {
+                loadFinished();
             }
-        };
-        articleWorker.execute();
+        }, SwingExecutor.INSTANCE);
 
-        // Load comments
-        SwingWorker<List<Comment>, Void> commentWorker = new SwingWorker<>() {
-            @Override
-            protected List<Comment> doInBackground() {
-                return model.getAllComments();
-            }
-
-            @Override
-            protected void done() {
-                try {
-                    List<Comment> comments = get();
-                    commentTableModel = new CommentTableModel(comments);
+        bootstrap.getComments().whenCompleteAsync((page, error) -> {
+            try {
+                if (page != null) {
+                    commentTableModel = new CommentTableModel(page.getItems());
                     view.getCommentsTable().setModel(commentTableModel);
+                    commentFilter.reset(commentTableModel, page.getItems());
+                    commentPages.reset(page);
                     view.getDeleteCommentButton().setEnabled(false);
                     view.getViewCommentButton().setEnabled(false);
-                } catch (Exception ex) {
-                    ex.printStackTrace();
+                } else {
+                    error.printStackTrace();
                 }
+            } finally {
+                loadFinished();
             }
-        };
-        commentWorker.execute();
+        }, SwingExecutor.INSTANCE);
+    }
+
+    /**
+     * Show the tables as they were when the last session of this user ended, then bring them up to date with
+     * the changes made since. The snapshot is mapped and its blocks are decoded one by one in the background,
+     * the first block of every table is shown as soon as it is decoded. Without a usable snapshot the tables
+     * are loaded from the server.
+     */
+    private void restoreSnapshot() {
+        // holds back the loadAllData rounds requested until the tables are restored
+        runningLoads = 1;
+        fullLoad = false;
+        scheduler.run(Lane.INTERACTIVE, null, () -> SnapshotFile.open(snapshotFile)).whenComplete((snapshot, error) -> {
+            if (snapshot == null) {
+                if (error != null && !(error instanceof CancellationException)) {
+                    System.out.println("Ignored unreadable snapshot: " + error.getMessage());
+                }
+                restoreFinished(null);
+                return;
+            }
+
+            siteStats = snapshot.getStats();
+            view.updateStats(siteStats);
+            view.displayUserTable(new ArrayList<>());
+            userFilter.reset(view.userTableModel, List.of());
+            articleTableModel = new ArticleTableModel(new ArrayList<>());
+            view.getArticlesTable().setModel(articleTableModel);
+            articleFilter.reset(articleTableModel, List.of());
+            commentTableModel = new CommentTableModel(new ArrayList<>());
+            view.getCommentsTable().setModel(commentTableModel);
+            commentFilter.reset(commentTableModel, List.of());
+
+            // merged rather than appended, the pages loaded after the snapshot may repeat its rows
+            CompletableFuture<?> users = restoreBlocks(snapshot, Change.USER, 0, snapshot::readUsers, rows -> {
+                view.userTableModel.merge(rows);
+                userFilter.added(rows);
+            });
+            CompletableFuture<?> articles = restoreBlocks(snapshot, Change.ARTICLE, 0, snapshot::readArticles, rows -> {
+                articleTableModel.merge(rows);
+                articleFilter.added(rows);
+            });
+            CompletableFuture<?> comments = restoreBlocks(snapshot, Change.COMMENT, 0, snapshot::readComments, rows -> {
+                commentTableModel.merge(rows);
+                commentFilter.added(rows);
+            });
+            CompletableFuture.allOf(users, articles, comments).whenComplete((ignored, restoreError) -> {
+                if (restoreError != null) {
+                    // the tables are replaced by a full load
+                    System.out.println("Ignored damaged snapshot: " + restoreError.getMessage());
+                    restoreFinished(null);
+                } else {
+                    restoreFinished(snapshot);
+                }
+            });
+        });
+    }
+
+    /**
+     * Decode the blocks of one table of a snapshot one after another and show each of them.
+     * @param snapshot the snapshot
+     * @param dataset the table, e.g. {@link Change#USER}
+     * @param block the first block to decode
+     * @param reader decodes a block
+     * @param sink shows the rows of a block, called on the EDT
+     * @return completes on the EDT when every block is shown
+     */
+    private <T> CompletableFuture<?> restoreBlocks(SnapshotFile snapshot, String dataset, int block,
+                                                   BlockReader<T> reader, Consumer<List<T>> sink) {
+        if (block >= snapshot.blockCount(dataset)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        // the first block is what the user sees first, the rest waits behind more urgent work
+        Lane lane = block == 0 ? Lane.INTERACTIVE : Lane.BACKGROUND;
+        return scheduler.run(lane, null, () -> reader.read(block)).thenCompose(rows -> {
+            sink.accept(rows);
+            return restoreBlocks(snapshot, dataset, block + 1, reader, sink);
+        });
+    }
+
+    /**
+     * Called on the EDT when the snapshot is shown or could not be used; starts the first loadAllData round.
+     * @param snapshot the restored snapshot, or null to load the tables from the server
+     */
+    private void restoreFinished(SnapshotFile snapshot) {
+        if (snapshot != null) {
+            userPages.restore(snapshot.getWindow(Change.USER));
+            articlePages.restore(snapshot.getWindow(Change.ARTICLE));
+            commentPages.restore(snapshot.getWindow(Change.COMMENT));
+            // only the changes made since the snapshot are fetched
+            model.setHighWaterMarks(snapshot.getVersion());
+        }
+        runningLoads = 0;
+        reloadRequested = false;
+        loadAllData();
+    }
+
+    /**
+     * Keep the tables on disk for the next session. Nothing is kept until every table is current up to
+     * a known version of the change log, the next session could not bring them up to date otherwise.
+     * Only the columns of the tables are copied on the EDT; the rows are built, encoded and written in the
+     * background, and a newer snapshot replaces one that is still being written.
+     * @param lane the lane the snapshot is written in
+     * @return completes on the EDT when the snapshot is written or could not be written
+     */
+    private CompletableFuture<Void> saveSnapshot(Lane lane) {
+        long version = model.getHighWaterMark();
+        if (version < 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        Map<String, PageWindow> windows = new HashMap<>();
+        windows.put(Change.USER, userPages.getWindow());
+        windows.put(Change.ARTICLE, articlePages.getWindow());
+        windows.put(Change.COMMENT, commentPages.getWindow());
+        SiteStats stats = siteStats == null ? null : siteStats.copy();
+        // the tables may change while the file is written
+        Supplier<List<User>> users = view.userTableModel.snapshotRows();
+        Supplier<List<Article>> articles = articleTableModel.snapshotRows();
+        Supplier<List<Comment>> comments = commentTableModel.snapshotRows();
+
+        return scheduler.run(lane, snapshotFile, () -> {
+            SnapshotFile.write(snapshotFile,
+                    new SnapshotFile.Contents(version, stats, users.get(), articles.get(), comments.get(), windows));
+            return (Void) null;
+        }).whenComplete((ignored, error) -> {
+            if (error != null && !(error instanceof CancellationException)) {
+                System.out.println("Could not save the snapshot: " + error.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Fetch the changes since a version and apply them to the tables.
+     * @param since the version the tables are current up to
+     */
+    private void syncChanges(long since) {
+        fullLoad = false;
+        runningLoads = 1;
+        scheduler.submit(Lane.BACKGROUND, () -> asyncModel.getChangesSince(since)).whenComplete((changes, error) -> {
+            if (changes == null) {
+                if (error != null && !(error instanceof CancellationException)) {
+                    error.printStackTrace();
+                }
+                loadFinished();
+                return;
+            }
+            applyChanges(changes).whenComplete((ignored, applyError) -> loadFinished());
+        });
+    }
+
+    /**
+     * Called on the EDT when one of the loads started by loadAllData has finished.
+     */
+    private void loadFinished() {
+        runningLoads--;
+        if (runningLoads > 0) {
+            return;
+        }
+        if (reloadRequested) {
+            reloadRequested = false;
+            loadAllData();
+        } else if (fullLoad && model.getHighWaterMark() >= 0) {
+            // the lists were read one after another and the change feed may have been applied to the tables
+            // they replaced, so catch up from the oldest of them
+            loadAllData();
+        } else if (!closing) {
+            // a save now would supersede the one the closing window waits for
+            saveSnapshot(Lane.BACKGROUND);
+        }
     }
 
     private void addExistingListeners() {
@@ -141,59 +439,54 @@ public class BlogManagerController {
             @Override
             public void actionPerformed(ActionEvent e) {
 
-                SwingWorker<Boolean, Void> worker = new SwingWorker<Boolean, Void>() {
-                    @Override
-                    protected Boolean doInBackground(){
-                        return model.sendLogoutRequest();
-                    }
+                scheduler.submit(Lane.INTERACTIVE, () -> asyncModel.logout()).whenComplete((success, error) -> {
+                    try {
+                        //if the logout is successful
+                        if (Boolean.TRUE.equals(success)) {
+                            changeFeed.stop();
+                            saveSnapshot(Lane.BACKGROUND);
 
-                    @Override
-                    protected void done() {
-                        try {
-                            //if the logout is successful
-                            if (get()) {
-                                //clear the token
-                                model.token = null;
-
-                                //关闭主窗口
-                                Window window = SwingUtilities.getWindowAncestor(view);
-                                if (window != null) {
-                                    window.dispose();
-                                }
+                            //clear the token
+                            model.token = null;
 
-                                //显示新的登录窗口
-                                LoginView loginView = new LoginView();
-                                loginView.addLoginListener(e -> {
-                                    String username = loginView.getUsernameField().getText();
-                                    String password = new String(loginView.getPasswordField().getPassword());
-                                    
-                                    if (model.sendLoginRequest(username, password)) {
-                                        loginView.dispose();
-                                        SwingUtilities.invokeLater(() -> {
-                                            BlogManagerView newView = new BlogManagerView();
-                                            JFrame newFrame = new JFrame("博客管理系统");
-                                            newFrame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-                                            newFrame.add(newView.getMainPanel());
-                                            newFrame.pack();
-                                            newFrame.setLocationRelativeTo(null);
-                                            newFrame.setVisible(true);
-                                            new BlogManagerController(model, newView);
-                                        });
-                                    } else {
-                                        loginView.setStatusText("登录失败，请重试");
-                                    }
-                                });
-                                loginView.setVisible(true);
-
-                            } else {
-                                view.statusLabel.setText("登出失败");
+                            //关闭主窗口
+                            Window window = SwingUtilities.getWindowAncestor(view);
+                            if (window != null) {
+                                window.dispose();
                             }
-                        } catch (Exception ex) {
-                            System.out.println("Unexpected error: " + ex.getMessage());
+
+                            //显示新的登录窗口
+                            LoginView loginView = new LoginView();
+                            loginView.addLoginListener(event -> {
+                                String username = loginView.getUsernameField().getText();
+                                String password = new String(loginView.getPasswordField().getPassword());
+
+                                scheduler.submit(Lane.INTERACTIVE, loginView, () -> asyncModel.login(username, password))
+                                        .whenComplete((loggedIn, loginError) -> {
+                                            if (Boolean.TRUE.equals(loggedIn)) {
+                                                loginView.dispose();
+                                                BlogManagerView newView = new BlogManagerView();
+                                                JFrame newFrame = new JFrame("博客管理系统");
+                                                newFrame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+                                                newFrame.add(newView.getMainPanel());
+                                                newFrame.pack();
+                                                newFrame.setLocationRelativeTo(null);
+                                                newFrame.setVisible(true);
+                                                new BlogManagerController(model, newView);
+                                            } else if (!(loginError instanceof CancellationException)) {
+                                                loginView.setStatusText("登录失败，请重试");
+                                            }
+                                        });
+                            });
+                            loginView.setVisible(true);
+
+                        } else {
+                            view.statusLabel.setText("登出失败");
                         }
+                    } catch (Exception ex) {
+                        System.out.println("Unexpected error: " + ex.getMessage());
                     }
-                };
-                worker.execute();
+                });
             }
         });
 
@@ -207,23 +500,14 @@ public class BlogManagerController {
                 int selectedRow =view.userTable.getSelectedRow();
                 if (selectedRow >= 0) {
 
-                    // get the user id
-                    int userId =(int)view.userTable.getValueAt(selectedRow, 0);
-
-                    //use stream API to find the user with the same id
-                    User selectedUser = view.users.stream()
-                            .filter(user -> user.getId() == userId)
-                            .findFirst()
-                            .orElse(null);
+                    // get the user shown in the row
+                    User selectedUser = view.userTableModel.getUserAt(selectedRow);
 
                     if (selectedUser != null){
 
                         //call the displaySelectedUserInfo method to display the user info
                         view.displaySelectedUserInfo(selectedUser);
 
-                        // 保存选中的行
-                        view.selectedRow = selectedRow;
-
                         // 只有管理员才能使用这些功能
                         if ("admin".equals(model.userRole)) {
                             String status = selectedUser.getStatus();
@@ -252,29 +536,23 @@ public class BlogManagerController {
         view.deleteUserBtn.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                    //get the selected user id
-                    int selectedId = (int) view.userTableModel.getValueAt(view.selectedRow, 0);
-
-                    SwingWorker<Boolean, Void> worker = new SwingWorker<Boolean, Void>() {
-                        @Override
-                        protected Boolean doInBackground(){
-                            return model.sendDeleteUserRequest(selectedId);
-                        }
-
-                        @Override
-                        protected void done() {
-                            try {
-                                if (get()) {
-                                    refreshUsers();
-                                } else {
-                                    JOptionPane.showMessageDialog(null, "Forbidden: Admin privileges required.", "Forbidden", JOptionPane.ERROR_MESSAGE);
-                                }
-                            } catch (Exception e) {
-                                System.out.println("Unexpected error: " + e.getMessage());
-                            }
+                    //get the selected user id; the row is read now, rows move when the table is filtered, sorted or changed
+                    int selectedRow = view.userTable.getSelectedRow();
+                    if (selectedRow < 0) {
+                        return;
+                    }
+                    int selectedId = view.userTableModel.getIdAt(selectedRow);
+
+                    scheduler.submit(Lane.INTERACTIVE, () -> asyncModel.deleteUser(selectedId)).whenComplete((success, error) -> {
+                        if (Boolean.TRUE.equals(success)) {
+                            // the backend also deletes the user's articles and comment threads
+                            loadAllData();
+                        } else if (error == null) {
+                            JOptionPane.showMessageDialog(null, "Forbidden: Admin privileges required.", "Forbidden", JOptionPane.ERROR_MESSAGE);
+                        } else {
+                            System.out.println("Unexpected error: " + error.getMessage());
                         }
-                    };
-                    worker.execute();
+                    });
             }
         });
 
@@ -282,28 +560,21 @@ public class BlogManagerController {
             @Override
             public void actionPerformed(ActionEvent e) {
                 //get the selected user id
-                int selectedId = (int) view.userTableModel.getValueAt(view.selectedRow, 0);
-
-                SwingWorker<Boolean, Void> worker = new SwingWorker<Boolean, Void>() {
-                    @Override
-                    protected Boolean doInBackground(){
-                        return model.sendBanUserRequest(selectedId);
-                    }
-
-                    @Override
-                    protected void done() {
-                        try {
-                            if (get()) {
-                                refreshUsers();
-                            } else {
-                                JOptionPane.showMessageDialog(null, "Failure: The user has already been banned", "Failure", JOptionPane.ERROR_MESSAGE);
-                            }
-                        } catch (Exception e) {
-                            System.out.println("Unexpected error: " + e.getMessage());
-                        }
+                int selectedRow = view.userTable.getSelectedRow();
+                if (selectedRow < 0) {
+                    return;
+                }
+                int selectedId = view.userTableModel.getIdAt(selectedRow);
+
+                scheduler.submit(Lane.INTERACTIVE, () -> asyncModel.banUser(selectedId)).whenComplete((success, error) -> {
+                    if (Boolean.TRUE.equals(success)) {
+                        applyUserStatusChanged(selectedId, "banned");
+                    } else if (error == null) {
+                        JOptionPane.showMessageDialog(null, "Failure: The user has already been banned", "Failure", JOptionPane.ERROR_MESSAGE);
+                    } else {
+                        System.out.println("Unexpected error: " + error.getMessage());
                     }
-                };
-                worker.execute();
+                });
             }
         });
 
@@ -311,28 +582,21 @@ public class BlogManagerController {
         view.revalidateUserBtn.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                int selectedId = (int) view.userTableModel.getValueAt(view.selectedRow, 0);
-
-                SwingWorker<Boolean, Void> worker = new SwingWorker<Boolean, Void>() {
-                    @Override
-                    protected Boolean doInBackground(){
-                        return model.sendRevalidateUserRequest(selectedId);
-                    }
-
-                    @Override
-                    protected void done() {
-                        try {
-                            if (get()) {
-                                refreshUsers();
-                            } else {
-                                JOptionPane.showMessageDialog(null, "Failure: The user has already been revalidated", "Failure", JOptionPane.ERROR_MESSAGE);
-                            }
-                        } catch (Exception e) {
-                            System.out.println("Unexpected error: " + e.getMessage());
-                        }
+                int selectedRow = view.userTable.getSelectedRow();
+                if (selectedRow < 0) {
+                    return;
+                }
+                int selectedId = view.userTableModel.getIdAt(selectedRow);
+
+                scheduler.submit(Lane.INTERACTIVE, () -> asyncModel.revalidateUser(selectedId)).whenComplete((success, error) -> {
+                    if (Boolean.TRUE.equals(success)) {
+                        applyUserStatusChanged(selectedId, "active");
+                    } else if (error == null) {
+                        JOptionPane.showMessageDialog(null, "Failure: The user has already been revalidated", "Failure", JOptionPane.ERROR_MESSAGE);
+                    } else {
+                        System.out.println("Unexpected error: " + error.getMessage());
                     }
-                };
-                worker.execute();
+                });
             }
         });
     }
@@ -342,15 +606,18 @@ public class BlogManagerController {
         view.getDeleteArticleButton().addActionListener(e -> {
             int selectedRow = view.getArticlesTable().getSelectedRow();
             if (selectedRow >= 0) {
-                int articleId = (int) articleTableModel.getValueAt(selectedRow, 0);
+                int articleId = articleTableModel.getIdAt(selectedRow);
                 if (JOptionPane.showConfirmDialog(null, 
                     "Are you sure you want to delete this article?", 
                     "Confirm Delete", 
                     JOptionPane.YES_NO_OPTION) == JOptionPane.YES_OPTION) {
                     
-                    if (model.deleteArticle(articleId)) {
-                        loadAllData(); // 刷新所有数据
-                    }
+                    scheduler.submit(Lane.INTERACTIVE, () -> asyncModel.deleteArticle(articleId))
+                            .whenComplete((deleted, error) -> {
+                                if (Boolean.TRUE.equals(deleted)) {
+                                    applyArticleDeleted(articleId);
+                                }
+                            });
                 }
             }
         });
@@ -367,15 +634,18 @@ public class BlogManagerController {
         view.getDeleteCommentButton().addActionListener(e -> {
             int selectedRow = view.getCommentsTable().getSelectedRow();
             if (selectedRow >= 0) {
-                int commentId = (int) commentTableModel.getValueAt(selectedRow, 0);
+                int commentId = commentTableModel.getIdAt(selectedRow);
                 if (JOptionPane.showConfirmDialog(null, 
                     "Are you sure you want to delete this comment?", 
                     "Confirm Delete", 
                     JOptionPane.YES_NO_OPTION) == JOptionPane.YES_OPTION) {
                     
-                    if (model.deleteComment(commentId)) {
-                        loadAllData(); // 刷新所有数据
-                    }
+                    scheduler.submit(Lane.INTERACTIVE, () -> asyncModel.deleteComment(commentId))
+                            .whenComplete((deleted, error) -> {
+                                if (Boolean.TRUE.equals(deleted)) {
+                                    applyCommentDeleted(commentId);
+                                }
+                            });
                 }
             }
         });
@@ -402,6 +672,217 @@ public class BlogManagerController {
         });
     }
 
+    /**
+     * Load the avatar of a displayed user, replacing the load for the previously displayed user.
+     * @param user the displayed user
+     */
+    private void loadAvatar(User user) {
+        String avatarUrl = BlogManagerView.avatarUrlOf(user);
+        scheduler.submit(Lane.DETAIL, "avatar", () -> AvatarService.shared().load(avatarUrl))
+                .whenComplete((avatar, error) -> {
+                    if (avatar != null) {
+                        view.showAvatar(user, avatar);
+                    } else if (!(error instanceof CancellationException)) {
+                        view.showAvatarFailed(user);
+                    }
+                });
+    }
+
+    /**
+     * Apply a batch of changes from the change feed or the change log as row deltas.
+     * Deleted rows are removed at once. Changed rows are fetched, but only those that are loaded or new;
+     * a changed row on a page that was not loaded yet is up to date when its page comes.
+     * The counters of articles and users come as changes of those rows, the statistics are fetched again.
+     * @param changes the changes, merged per row
+     * @return completes on the EDT when the batch is applied
+     */
+    private CompletableFuture<?> applyChanges(ChangeSet changes) {
+        if (changes.isReset()) {
+            // changes were lost, the tables can only be brought up to date by loading them again
+            model.clearHighWaterMarks();
+            loadAllData();
+            return CompletableFuture.completedFuture(null);
+        }
+
+        for (int id : changes.deleted(Change.COMMENT)) {
+            if (commentTableModel.removeById(id) != null) {
+                commentFilter.removed(id);
+            }
+        }
+        for (int id : changes.deleted(Change.ARTICLE)) {
+            if (articleTableModel.removeById(id) != null) {
+                articleFilter.removed(id);
+            }
+        }
+        for (int id : changes.deleted(Change.USER)) {
+            if (view.userTableModel.removeById(id) != null) {
+                userFilter.removed(id);
+            }
+        }
+
+        CompletableFuture<?> users = applyChanged(changes, Change.USER, () -> view.userTableModel, userFilter,
+                asyncModel::getUsersByIds);
+        CompletableFuture<?> articles = applyChanged(changes, Change.ARTICLE, () -> articleTableModel, articleFilter,
+                asyncModel::getArticlesByIds);
+        CompletableFuture<?> comments = applyChanged(changes, Change.COMMENT, () -> commentTableModel, commentFilter,
+                asyncModel::getCommentsByIds);
+        CompletableFuture<?> stats = scheduler.submit(Lane.BACKGROUND, () -> asyncModel.getSiteStats())
+                .thenAccept(fresh -> {
+                    if (fresh != null) {
+                        siteStats = fresh;
+                        view.updateStats(fresh);
+                    }
+                });
+        return CompletableFuture.allOf(users, articles, comments, stats).whenComplete((ignored, error) -> {
+            if (error == null) {
+                model.advanceHighWaterMarks(changes.getVersion());
+            }
+            refreshSelectedUser(changes.changed(Change.USER));
+        });
+    }
+
+    /**
+     * Fetch the loaded or new rows of one entity that changed and apply them to its table.
+     * @param changes the changes
+     * @param entity the entity of the table
+     * @param tableModel the current model of the table, which loadAllData may replace while the rows are fetched
+     * @param filter the filter of the table
+     * @param fetch fetches rows by id
+     * @return completes on the EDT when the rows are applied
+     */
+    private <T> CompletableFuture<?> applyChanged(ChangeSet changes, String entity,
+                                                  Supplier<ListTableModel<T>> tableModel,
+                                                  TableFilter<T> filter,
+                                                  Function<int[], CompletableFuture<List<T>>> fetch) {
+        int[] ids = Arrays.stream(changes.changed(entity))
+                .filter(id -> tableModel.get().contains(id) || changes.isInserted(entity, id))
+                .toArray();
+        if (ids.length == 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return scheduler.submit(Lane.BACKGROUND, () -> fetch.apply(ids)).thenAccept(rows -> {
+            tableModel.get().applyChanged(rows, id -> changes.isInserted(entity, id));
+            filter.changed(rows);
+        });
+    }
+
+    /**
+     * Show the current state of the selected user in the detail panel if it changed.
+     * @param changedIds the ids of the changed users
+     */
+    private void refreshSelectedUser(int[] changedIds) {
+        int selectedRow = view.userTable.getSelectedRow();
+        if (selectedRow < 0) {
+            return;
+        }
+        int selectedId = view.userTableModel.getIdAt(selectedRow);
+        if (Arrays.stream(changedIds).noneMatch(id -> id == selectedId)) {
+            return;
+        }
+        User user = view.userTableModel.getUserAt(selectedRow);
+        view.displaySelectedUserInfo(user);
+        if ("admin".equals(model.userRole)) {
+            view.banUserBtn.setEnabled("active".equals(user.getStatus()));
+            view.revalidateUserBtn.setEnabled("banned".equals(user.getStatus()));
+        }
+    }
+
+    /**
+     * Remove a deleted article and its comments from the tables and adjust the counters,
+     * instead of reloading every dataset.
+     * @param articleId the id of the deleted article
+     */
+    private void applyArticleDeleted(int articleId) {
+        Article article = articleTableModel.removeById(articleId);
+        if (article == null) {
+            return;
+        }
+
+        // the backend deletes the comments of the article together with it
+        List<Comment> comments = commentTableModel.removeByArticleId(articleId);
+        articleFilter.removed(articleId);
+        adjustUserCounts(article.getAuthorUsername(), -1, 0);
+        for (Comment comment : comments) {
+            commentFilter.removed(comment.getId());
+            adjustUserCounts(comment.getAuthorUsername(), 0, -1);
+        }
+
+        if (siteStats != null) {
+            // only the loaded pages of comments were removed above, the article knows the full count
+            siteStats.setTotalArticles(siteStats.getTotalArticles() - 1);
+            siteStats.setTotalComments(siteStats.getTotalComments() - article.getCommentCount());
+            view.updateStats(siteStats);
+        }
+    }
+
+    /**
+     * Remove a deleted comment from the table and adjust the counters.
+     * @param commentId the id of the deleted comment
+     */
+    private void applyCommentDeleted(int commentId) {
+        Comment comment = commentTableModel.removeById(commentId);
+        if (comment == null) {
+            return;
+        }
+        commentFilter.removed(commentId);
+
+        Article article = articleTableModel.getArticleById(comment.getArticleId());
+        if (article != null) {
+            article.setCommentCount(article.getCommentCount() - 1);
+            articleTableModel.updateArticle(article);
+        }
+        adjustUserCounts(comment.getAuthorUsername(), 0, -1);
+
+        if (siteStats != null) {
+            siteStats.setTotalComments(siteStats.getTotalComments() - 1);
+            view.updateStats(siteStats);
+        }
+    }
+
+    /**
+     * Update the status of a banned or revalidated user in place.
+     * @param userId the user id
+     * @param status the new status, "banned" or "active"
+     */
+    private void applyUserStatusChanged(int userId, String status) {
+        User user = view.userTableModel.getUserById(userId);
+        if (user == null || status.equals(user.getStatus())) {
+            return;
+        }
+        user.setStatus(status);
+        view.userTableModel.updateUser(user);
+
+        if (siteStats != null) {
+            int change = "banned".equals(status) ? 1 : -1;
+            siteStats.setBannedUsers(siteStats.getBannedUsers() + change);
+            siteStats.setActiveUsers(siteStats.getActiveUsers() - change);
+            view.updateStats(siteStats);
+        }
+
+        // refresh the detail panel and buttons if the user is still selected
+        int selectedRow = view.userTable.getSelectedRow();
+        if (selectedRow >= 0 && view.userTableModel.getIdAt(selectedRow) == userId) {
+            view.displaySelectedUserInfo(user);
+            view.banUserBtn.setEnabled("active".equals(status));
+            view.revalidateUserBtn.setEnabled("banned".equals(status));
+        }
+    }
+
+    /**
+     * Adjust the article and comment counts shown for a user.
+     * @param username the username of the user
+     * @param articleChange the change of the article count
+     * @param commentChange the change of the comment count
+     */
+    private void adjustUserCounts(String username, int articleChange, int commentChange) {
+        User user = view.userTableModel.getUserByUsername(username);
+        if (user != null) {
+            user.setArticleCount(user.getArticleCount() + articleChange);
+            user.setCommentCount(user.getCommentCount() + commentChange);
+            view.userTableModel.updateUser(user);
+        }
+    }
+
     private void showArticleDialog(Article article) {
         JDialog dialog = new JDialog();
         dialog.setTitle("Article Details");
@@ -458,24 +939,8 @@ public class BlogManagerController {
         dialog.setVisible(true);
     }
 
-    private void refreshUsers() {
-        SwingWorker<List<User>, Void> worker = new SwingWorker<List<User>, Void>() {
-            @Override
-            protected List<User> doInBackground() {
-                return model.sendGetUsersRequest();
-            }
-
-            @Override
-            protected void done() {
-                try {
-                    view.users = get();
-                    view.displayUserTable(view.users);
-                    loadAllData(); // 刷新所有数据
-                } catch (Exception e) {
-                    System.out.println("Unexpected error: " + e.getMessage());
-                }
-            }
-        };
-        worker.execute();
+    //decodes one block of a snapshot
+    private interface BlockReader<T> {
+        List<T> read(int block) throws IOException;
     }
 }
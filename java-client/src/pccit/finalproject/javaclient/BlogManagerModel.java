@@ -1,24 +1,35 @@
 package pccit.finalproject.javaclient;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.JsonNode;
-import pccit.finalproject.javaclient.config.JacksonConfig;
+import com.fasterxml.jackson.databind.ObjectReader;
+import pccit.finalproject.javaclient.codec.CodecRegistry;
+import pccit.finalproject.javaclient.codec.JsonStreamDecoder;
 import pccit.finalproject.javaclient.model.*;
+import pccit.finalproject.javaclient.network.ApiRequest;
+import pccit.finalproject.javaclient.network.ApiResponse;
+import pccit.finalproject.javaclient.network.HttpClientTransport;
+import pccit.finalproject.javaclient.network.HttpTransport;
+import pccit.finalproject.javaclient.network.ResponseCache;
+import pccit.finalproject.javaclient.network.SingleFlight;
+import pccit.finalproject.javaclient.sync.Change;
+import pccit.finalproject.javaclient.sync.ChangeLogPage;
+import pccit.finalproject.javaclient.sync.ChangeSet;
 
 import javax.swing.*;
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.time.LocalDateTime;
+import java.io.UncheckedIOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
-import static pccit.finalproject.javaclient.config.Config.BACKEND_URL;
+import static pccit.finalproject.javaclient.config.Config.MAX_IDS_PER_REQUEST;
+import static pccit.finalproject.javaclient.config.Config.PAGE_SIZE;
+import static pccit.finalproject.javaclient.config.Config.STREAM_PAGE_SIZE;
 
 /**
  * The model for the blog manager.
@@ -26,10 +37,64 @@ import static pccit.finalproject.javaclient.config.Config.BACKEND_URL;
  * It manages HTTP requests such as login, logout, get users, delete user, ban user, and revalidate user.
  */
 public class BlogManagerModel {
+    //the admin lists send their timestamps as numbers when asked with this header
+    private static final String TIMESTAMP_FORMAT_HEADER = "X-Timestamp-Format";
+    private static final String EPOCH_MILLIS = "epoch-millis";
+
+    //the admin lists tell the version of the change log they were read at
+    private static final String CHANGE_VERSION_HEADER = "X-Change-Version";
+
+    //the admin lists send their rows one per line when asked for NDJSON, with the next cursor in a header
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    //the datasets that are kept current with the change log
+    private static final List<String> DATASETS = List.of(Change.USER, Change.ARTICLE, Change.COMMENT);
+
     String token;
     String userRole;  // 添加用户角色字段
     private String currentUsername;  // Add this field
 
+    //the transport every request is sent through
+    private final HttpTransport transport;
+
+    //concurrent identical GETs share one request, each caller gets its own copy of the decoded result
+    private final SingleFlight<String, Page<User>> userFlights = new SingleFlight<>(Page::copy);
+    private final SingleFlight<String, SiteStats> statsFlights = new SingleFlight<>(SiteStats::copy);
+    private final SingleFlight<String, Page<Article>> articleFlights = new SingleFlight<>(Page::copy);
+    private final SingleFlight<String, Page<Comment>> commentFlights = new SingleFlight<>(Page::copy);
+
+    //the last result of each GET, revalidated with its ETag
+    private final ResponseCache responseCache = new ResponseCache();
+
+    //the high-water mark of every loaded dataset: the version of the change log its rows are current up to
+    private final Map<String, Long> highWaterMarks = new ConcurrentHashMap<>();
+
+    /**
+     * Create a model that uses the shared HTTP transport.
+     */
+    public BlogManagerModel() {
+        this(HttpClientTransport.shared());
+    }
+
+    /**
+     * Create a model that uses the given transport.
+     * @param transport the transport used for every request
+     */
+    public BlogManagerModel(HttpTransport transport) {
+        this.transport = transport;
+    }
+
+    /**
+     * Send an authenticated request with the current token.
+     * @param request the request
+     * @return the response, which must be closed by the caller
+     * @throws IOException if the request fails
+     */
+    private ApiResponse send(ApiRequest request) throws IOException {
+        return transport.send(request.bearer(this.token));
+    }
+
     /**
      * Send a login request to the backend.
      * @param username The username.
@@ -38,54 +103,27 @@ public class BlogManagerModel {
      */
     public Boolean sendLoginRequest(String username, String password) {
         try {
-            URL url = new URL(BACKEND_URL+"/auth/login");
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("POST");
-            connection.setRequestProperty("Content-Type", "application/json");
-            connection.setDoOutput(true);
-
-            String requestBody = "{\"username\":\"" + username + "\",\"password\":\"" + password + "\"}";
-
-            try (OutputStream os = connection.getOutputStream()) {
-                os.write(requestBody.getBytes());
-                os.flush();
-            }
-
-            if (connection.getResponseCode() == 200) {
-                try (BufferedReader br = new BufferedReader(new InputStreamReader(connection.getInputStream()))) {
-                    StringBuilder response = new StringBuilder();
-                    String line;
-                    while ((line = br.readLine()) != null) {
-                        response.append(line);
-                    }
-
-                    String responseBody = response.toString();
-                    System.out.println("Login response: " + responseBody);
+            String requestBody = CodecRegistry.loginRequest().writeValueAsString(new LoginRequest(username, password));
 
+            try (ApiResponse response = transport.send(ApiRequest.post("/auth/login", requestBody))) {
+                if (response.getStatusCode() == 200) {
                     // 使用Jackson解析JSON
-                    ObjectMapper objectMapper = JacksonConfig.getConfiguredObjectMapper();
-                    JsonNode rootNode = objectMapper.readTree(responseBody);
-                    
-                    // 获取token
-                    if (rootNode.has("token")) {
-                        this.token = rootNode.get("token").asText();
-                        
-                        // 获取user信息
-                        if (rootNode.has("user")) {
-                            JsonNode userNode = rootNode.get("user");
-                            if (userNode.has("username") && userNode.has("role")) {
-                                this.currentUsername = userNode.get("username").asText();
-                                this.userRole = userNode.get("role").asText();
-                                System.out.println("Token: " + this.token);
-                                System.out.println("User role: " + this.userRole);
-                                System.out.println("Username: " + this.currentUsername);
-                                return true;
-                            }
-                        }
+                    LoginResponse loginResponse = CodecRegistry.loginResponse().readValue(response.getBody());
+
+                    // 获取token和user信息
+                    LoginResponse.Account account = loginResponse.getUser();
+                    if (loginResponse.getToken() != null && account != null
+                            && account.getUsername() != null && account.getRole() != null) {
+                        this.token = loginResponse.getToken();
+                        responseCache.clear();
+                        highWaterMarks.clear();
+                        this.currentUsername = account.getUsername();
+                        this.userRole = account.getRole();
+                        return true;
                     }
+                } else if (response.getStatusCode() == 401) {
+                    JOptionPane.showMessageDialog(null, "Wrong username or password", "Login failed", JOptionPane.ERROR_MESSAGE);
                 }
-            } else if (connection.getResponseCode() == 401) {
-                JOptionPane.showMessageDialog(null, "Wrong username or password", "Login failed", JOptionPane.ERROR_MESSAGE);
             }
 
         } catch (IOException e) {
@@ -100,20 +138,9 @@ public class BlogManagerModel {
      * @return True if the logout request is successful, false otherwise.
      */
     public Boolean sendLogoutRequest() {
-        try {
-            //create the URL
-            URL url = new URL(BACKEND_URL+"/auth/logout");
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-
-            //Set the request method as POST
-            connection.setRequestMethod("POST");
-            connection.setRequestProperty("Authorization","Bearer "+this.token);
-
-            //Send the request
-            connection.connect();
-
+        try (ApiResponse response = send(ApiRequest.post("/auth/logout", null))) {
             //Check the response code
-            if (connection.getResponseCode() == 200) {
+            if (response.getStatusCode() == 200) {
                 return true;
             } else {
                 JOptionPane.showMessageDialog(null, "Fail to logout.", "Fail to logout.", JOptionPane.ERROR_MESSAGE);
@@ -128,55 +155,14 @@ public class BlogManagerModel {
     }
 
     /**
-     * Send a get users request to the backend.
-     * @return A list of users.
+     * Get one page of users from the backend.
+     * Calls made while the same page is still being requested get a copy of its result.
+     * @param cursor The cursor returned with the previous page, or null for the first page.
+     * @return The page of users.
      */
-    public List<User> sendGetUsersRequest() {
-
-        List<User> users = new ArrayList<>();
-
-        try {
-            //Create the URL
-            URL url = new URL(BACKEND_URL+"/admin/users");
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-
-            //set the request method as GET
-            connection.setRequestMethod("GET");
-            connection.setRequestProperty("Authorization", "Bearer " +this.token);
-
-            //Send the request
-            connection.connect();
-
-            //check the response code
-            if (connection.getResponseCode() == 200) {
-
-                //Read the response
-                try (BufferedReader br = new BufferedReader(new InputStreamReader(connection.getInputStream()))) {
-                    StringBuilder response = new StringBuilder();
-                    String line;
-                    while ((line = br.readLine()) != null) {
-                        response.append(line);
-                    }
-
-                    //call the JacksonConfig class to get the configured ObjectMapper and pass it to the readValue method
-                    ObjectMapper objectMapper = JacksonConfig.getConfiguredObjectMapper();
-                    //Convert the response to a list of users
-                    users = objectMapper.readValue(response.toString(), new TypeReference<List<User>>() {});
-
-                } catch (IOException e) {
-                    //using the ErrorHandler class to handle the exception
-                    ErrorHandler.handleIOException(e);
-                }
-            }else if (connection.getResponseCode() == 401) {
-                JOptionPane.showMessageDialog(null, "Unauthorized: Fail to fetch the user.", "Unauthorized", JOptionPane.ERROR_MESSAGE);
-            }else if (connection.getResponseCode() == 403) {
-                JOptionPane.showMessageDialog(null, "Forbidden: Admin privileges required.", "Forbidden", JOptionPane.ERROR_MESSAGE);
-            }
-        }catch (IOException e) {
-            //using the ErrorHandler class to handle the exception
-            ErrorHandler.handleIOException(e);
-        }
-        return users;
+    public Page<User> getUsersPage(String cursor) {
+        String path = pagePath("/admin/users", cursor);
+        return userFlights.execute(path, () -> fetchPage(path, CodecRegistry.users(), cursor == null ? Change.USER : null));
     }
 
     /**
@@ -185,62 +171,30 @@ public class BlogManagerModel {
      * @return True if the delete user request is successful, false otherwise.
      */
     public Boolean sendDeleteUserRequest(int id){
-        try {
-            //create the URL
-            URL url = new URL(BACKEND_URL+"/admin/users/"+id);
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-
-            // 打印请求URL
-            System.out.println("Delete request URL: " + url.toString());
-
-            //set the request method as DELETE
-            connection.setRequestMethod("DELETE");
-            connection.setRequestProperty("Authorization", "Bearer " + this.token);
-            connection.setRequestProperty("Content-Type", "application/json");
-            
-            // 打印请求头
-            System.out.println("Request headers:");
-            System.out.println("Authorization: Bearer " + this.token);
-            System.out.println("Content-Type: application/json");
-            System.out.println("User role: " + this.userRole);
-
-            //connect to the server
-            connection.connect();
-
+        try (ApiResponse response = send(ApiRequest.delete("/admin/users/" + id))) {
             // 读取响应内容
-            StringBuilder response = new StringBuilder();
-            try (BufferedReader br = new BufferedReader(new InputStreamReader(
-                    connection.getResponseCode() >= 400 ? connection.getErrorStream() : connection.getInputStream()))) {
-                String line;
-                while ((line = br.readLine()) != null) {
-                    response.append(line);
-                }
-            }
-            System.out.println("Response code: " + connection.getResponseCode());
-            System.out.println("Response body: " + response.toString());
+            String responseBody = response.getBodyAsString();
 
             //check the response code
-            if (connection.getResponseCode() == 200) {
+            if (response.getStatusCode() == 200) {
                 JOptionPane.showMessageDialog(null, "Successfully deleted user (id: "+id+" ).","Success", JOptionPane.INFORMATION_MESSAGE);
                 return true;
-            } else if (connection.getResponseCode() == 400) {
-                String errorMessage = response.toString().contains("Cannot delete the last admin") ? 
+            } else if (response.getStatusCode() == 400) {
+                String errorMessage = responseBody.contains("Cannot delete the last admin") ?
                     "Cannot delete the last admin user." : "Invalid request.";
                 JOptionPane.showMessageDialog(null, errorMessage, "Error", JOptionPane.ERROR_MESSAGE);
-            } else if (connection.getResponseCode() == 401) {
+            } else if (response.getStatusCode() == 401) {
                 JOptionPane.showMessageDialog(null, "Unauthorized: Failed to delete user (id: "+id+" ).", "Unauthorized", JOptionPane.ERROR_MESSAGE);
-            } else if (connection.getResponseCode() == 403) {
+            } else if (response.getStatusCode() == 403) {
                 JOptionPane.showMessageDialog(null, "Forbidden: Admin privileges required.", "Forbidden", JOptionPane.ERROR_MESSAGE);
-            } else if (connection.getResponseCode() == 404) {
+            } else if (response.getStatusCode() == 404) {
                 JOptionPane.showMessageDialog(null, "User (id: "+id+" ) not found.", "Not Found", JOptionPane.ERROR_MESSAGE);
-            } else if (connection.getResponseCode() == 500) {
-                String errorMessage = response.toString();
-                JOptionPane.showMessageDialog(null, "Server error: " + errorMessage, "Error", JOptionPane.ERROR_MESSAGE);
+            } else if (response.getStatusCode() == 500) {
+                JOptionPane.showMessageDialog(null, "Server error: " + responseBody, "Error", JOptionPane.ERROR_MESSAGE);
             }
         } catch (IOException e) {
             //using the ErrorHandler class to handle the exception
             ErrorHandler.handleIOException(e);
-            e.printStackTrace();  // 打印详细的错误堆栈
         }
         return false;
     }
@@ -251,39 +205,21 @@ public class BlogManagerModel {
      * @return True if the ban user request is successful, false otherwise.
      */
     public Boolean sendBanUserRequest(int id){
-        try {
-            //create the URL
-            URL url = new URL(BACKEND_URL+"/admin/users/"+id+"/ban");
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-
-            //set the request method as POST
-            connection.setRequestMethod("POST");
-            connection.setRequestProperty("Authorization", "Bearer " + this.token);
-            connection.setRequestProperty("Content-Type", "application/json");
-
-            //allow output to the connection
-            connection.setDoOutput(true);
-
-            //construct the JSON body
-            // The default reason is "Delete by admin"
-            String defaultReason = "Delete by admin";
-            // The default duration is 100 hours
-            int defaultDurationInHours = 100;
-            String requestBody = String.format("{\"reason\":\"%s\",\"durationInHours\":%d}", defaultReason, defaultDurationInHours);
-
-            //Send the request
-            try (OutputStream os = connection.getOutputStream()) {
-                os.write(requestBody.getBytes());
-                os.flush();
-            }
-
+        //construct the JSON body
+        // The default reason is "Delete by admin"
+        String defaultReason = "Delete by admin";
+        // The default duration is 100 hours
+        int defaultDurationInHours = 100;
+        String requestBody = String.format("{\"reason\":\"%s\",\"durationInHours\":%d}", defaultReason, defaultDurationInHours);
+
+        try (ApiResponse response = send(ApiRequest.post("/admin/users/" + id + "/ban", requestBody))) {
             //Check the response code
-            if (connection.getResponseCode() == 200) {
+            if (response.getStatusCode() == 200) {
                 JOptionPane.showMessageDialog(null, "Successfully to ban user (id: "+id+" ).", "Success", JOptionPane.INFORMATION_MESSAGE);
                 return true;
-            }else if (connection.getResponseCode() == 401) {
+            }else if (response.getStatusCode() == 401) {
                 JOptionPane.showMessageDialog(null, "Unauthorized: Fail to ban user (id: "+id+" ).", "Unauthorized", JOptionPane.ERROR_MESSAGE);
-            }else if (connection.getResponseCode() == 403) {
+            }else if (response.getStatusCode() == 403) {
                 JOptionPane.showMessageDialog(null, "Forbidden: Admin privileges required.", "Forbidden", JOptionPane.ERROR_MESSAGE);
             }else{
                 JOptionPane.showMessageDialog(null, "Fail to ban user (id: "+id+" ).", "Error", JOptionPane.ERROR_MESSAGE);
@@ -301,25 +237,14 @@ public class BlogManagerModel {
      * @return True if the revalidate user request is successful, false otherwise.
      */
     public Boolean sendRevalidateUserRequest(int id){
-        try {
-            //create the URL
-            URL url = new URL(BACKEND_URL+"/admin/users/"+id+"/unban");
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-
-            //set teh request method as POST
-            connection.setRequestMethod("POST");
-            connection.setRequestProperty("Authorization", "Bearer " + this.token);
-
-            //send the request
-            connection.connect();
-
+        try (ApiResponse response = send(ApiRequest.post("/admin/users/" + id + "/unban", null))) {
             //check the response code
-            if (connection.getResponseCode() == 200) {
+            if (response.getStatusCode() == 200) {
                 JOptionPane.showMessageDialog(null, "Successfully to unban user (id: "+id+" ).", "Success", JOptionPane.INFORMATION_MESSAGE);
                 return true;
-            }else if (connection.getResponseCode() == 401) {
+            }else if (response.getStatusCode() == 401) {
                 JOptionPane.showMessageDialog(null, "Unauthorised: Fail to unban user (id: "+id+" ).", "Unauthorised", JOptionPane.ERROR_MESSAGE);
-            }else if (connection.getResponseCode() == 403) {
+            }else if (response.getStatusCode() == 403) {
                 JOptionPane.showMessageDialog(null, "Forbidden: Admin privileges required.", "Forbidden", JOptionPane.ERROR_MESSAGE);
             }else{
                 JOptionPane.showMessageDialog(null, "Error: Fail to unban user (id: "+id+" ).", "Error", JOptionPane.ERROR_MESSAGE);
@@ -335,51 +260,23 @@ public class BlogManagerModel {
      * 获取站点统计数据
      */
     public SiteStats getSiteStats() {
-        try {
-            URL url = new URL(BACKEND_URL + "/admin/stats");
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("GET");
-            connection.setRequestProperty("Authorization", "Bearer " + this.token);
-            connection.connect();
-
-            if (connection.getResponseCode() == 200) {
-                try (BufferedReader br = new BufferedReader(new InputStreamReader(connection.getInputStream()))) {
-                    StringBuilder response = new StringBuilder();
-                    String line;
-                    while ((line = br.readLine()) != null) {
-                        response.append(line);
-                    }
+        return statsFlights.execute("/admin/stats", this::fetchSiteStats);
+    }
 
-                    ObjectMapper objectMapper = JacksonConfig.getConfiguredObjectMapper();
-                    // 先解析为Map
-                    Map<String, Map<String, Integer>> statsMap = objectMapper.readValue(response.toString(), 
-                        new TypeReference<Map<String, Map<String, Integer>>>() {});
-                    
-                    // 创建并填充SiteStats对象
-                    SiteStats stats = new SiteStats();
-                    Map<String, Integer> users = statsMap.get("users");
-                    Map<String, Integer> articles = statsMap.get("articles");
-                    Map<String, Integer> comments = statsMap.get("comments");
-                    
-                    if (users != null) {
-                        stats.setTotalUsers(users.get("total"));
-                        stats.setActiveUsers(users.get("active"));
-                        stats.setBannedUsers(users.get("banned"));
-                    }
-                    
-                    if (articles != null) {
-                        stats.setTotalArticles(articles.get("total"));
-                    }
-                    
-                    if (comments != null) {
-                        stats.setTotalComments(comments.get("total"));
-                    }
-                    
-                    return stats;
-                }
-            } else if (connection.getResponseCode() == 401) {
+    private SiteStats fetchSiteStats() {
+        String path = "/admin/stats";
+        try (ApiResponse response = send(responseCache.conditional(ApiRequest.get(path)))) {
+            if (response.getStatusCode() == 304 && responseCache.get(path) != null) {
+                SiteStats cached = responseCache.get(path);
+                return cached.copy();
+            } else if (response.getStatusCode() == 200) {
+                // SiteStats binds the nested users/articles/comments sections itself
+                SiteStats stats = CodecRegistry.siteStats().readValue(response.getBody());
+                responseCache.put(path, response, stats.copy());
+                return stats;
+            } else if (response.getStatusCode() == 401) {
                 JOptionPane.showMessageDialog(null, "Unauthorized: Please login first", "Error", JOptionPane.ERROR_MESSAGE);
-            } else if (connection.getResponseCode() == 403) {
+            } else if (response.getStatusCode() == 403) {
                 JOptionPane.showMessageDialog(null, "Forbidden: Admin privileges required", "Error", JOptionPane.ERROR_MESSAGE);
             }
         } catch (IOException e) {
@@ -389,152 +286,193 @@ public class BlogManagerModel {
     }
 
     /**
-     * 获取所有文章列表
+     * 获取一页文章列表
+     * @param cursor 上一页返回的游标，第一页为 null
      */
-    public List<Article> getAllArticles() {
-        try {
-            URL url = new URL(BACKEND_URL + "/admin/articles");
-            System.out.println("Requesting articles from: " + url);
-            
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("GET");
-            connection.setRequestProperty("Authorization", "Bearer " + this.token);
-            System.out.println("Using token: " + this.token);
-            
-            connection.connect();
-            
-            System.out.println("Response code: " + connection.getResponseCode());
-            
-            if (connection.getResponseCode() == 200) {
-                try (BufferedReader br = new BufferedReader(new InputStreamReader(connection.getInputStream()))) {
-                    StringBuilder response = new StringBuilder();
-                    String line;
-                    while ((line = br.readLine()) != null) {
-                        response.append(line);
-                    }
+    public Page<Article> getArticlesPage(String cursor) {
+        String path = pagePath("/admin/articles", cursor);
+        return articleFlights.execute(path, () -> fetchPage(path, CodecRegistry.articles(), cursor == null ? Change.ARTICLE : null));
+    }
 
-                    String responseStr = response.toString();
-                    System.out.println("Articles response: " + responseStr);
+    /**
+     * 删除文章
+     */
+    public boolean deleteArticle(int articleId) {
+        try (ApiResponse response = send(ApiRequest.delete("/admin/articles/" + articleId))) {
+            if (response.getStatusCode() == 200) {
+                JOptionPane.showMessageDialog(null, "Article deleted successfully", "Success", JOptionPane.INFORMATION_MESSAGE);
+                return true;
+            } else if (response.getStatusCode() == 401) {
+                JOptionPane.showMessageDialog(null, "Unauthorized: Please login first", "Error", JOptionPane.ERROR_MESSAGE);
+            } else if (response.getStatusCode() == 403) {
+                JOptionPane.showMessageDialog(null, "Forbidden: Admin privileges required", "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        } catch (IOException e) {
+            ErrorHandler.handleIOException(e);
+        }
+        return false;
+    }
 
-                    if (responseStr.isEmpty()) {
-                        System.out.println("Empty response from server");
-                        return new ArrayList<>();
-                    }
+    /**
+     * 获取一页评论列表
+     * @param cursor 上一页返回的游标，第一页为 null
+     */
+    public Page<Comment> getCommentsPage(String cursor) {
+        String path = pagePath("/admin/comments", cursor);
+        return commentFlights.execute(path, () -> fetchPage(path, CodecRegistry.comments(), cursor == null ? Change.COMMENT : null));
+    }
 
-                    ObjectMapper objectMapper = JacksonConfig.getConfiguredObjectMapper();
-                    try {
-                        // 先解析为List<Map>
-                        List<Map<String, Object>> articleMaps = objectMapper.readValue(responseStr, 
-                            new TypeReference<List<Map<String, Object>>>() {});
-                        
-                        System.out.println("Parsed " + articleMaps.size() + " articles");
-                        
-                        List<Article> articles = new ArrayList<>();
-                        for (Map<String, Object> map : articleMaps) {
-                            try {
-                                Article article = new Article();
-                                System.out.println("Processing article: " + map);
-                                
-                                article.setId(((Number) map.get("id")).intValue());
-                                article.setTitle((String) map.get("title"));
-                                article.setContent((String) map.get("content"));
-                                article.setAuthorUsername((String) map.get("authorUsername"));
-                                
-                                Object commentCount = map.get("commentCount");
-                                if (commentCount != null) {
-                                    article.setCommentCount(((Number) commentCount).intValue());
-                                }
-                                
-                                Object viewCount = map.get("viewCount");
-                                if (viewCount != null) {
-                                    article.setViewCount(((Number) viewCount).intValue());
-                                }
-                                
-                                article.setStatus((String) map.get("status"));
-                                
-                                // 处理日期
-                                String createdAtStr = (String) map.get("createdAt");
-                                if (createdAtStr != null) {
-                                    System.out.println("CreatedAt string: " + createdAtStr);
-                                    try {
-                                        // 解析日期字符串
-                                        String[] parts = createdAtStr.split(" ");
-                                        String[] dateParts = parts[0].split("/");
-                                        String[] timeParts = parts[1].split(":");
-                                        
-                                        LocalDateTime dateTime = LocalDateTime.of(
-                                            Integer.parseInt(dateParts[0]), // year
-                                            Integer.parseInt(dateParts[1]), // month
-                                            Integer.parseInt(dateParts[2]), // day
-                                            Integer.parseInt(timeParts[0]), // hour
-                                            Integer.parseInt(timeParts[1]), // minute
-                                            Integer.parseInt(timeParts[2])  // second
-                                        );
-                                        article.setCreatedAt(dateTime);
-                                    } catch (Exception e) {
-                                        System.out.println("Error parsing date: " + e.getMessage());
-                                        article.setCreatedAt(LocalDateTime.now());
-                                    }
-                                }
-                                
-                                articles.add(article);
-                            } catch (Exception e) {
-                                System.out.println("Error processing article: " + e.getMessage());
-                                e.printStackTrace();
-                            }
-                        }
-                        
-                        System.out.println("Returning " + articles.size() + " articles");
-                        return articles;
-                    } catch (Exception e) {
-                        System.out.println("Error parsing JSON: " + e.getMessage());
-                        e.printStackTrace();
-                        return new ArrayList<>();
-                    }
+    /**
+     * Stream a page of users that follows the first one, see {@link #streamPage}.
+     * @param cursor The cursor returned with the previous page.
+     * @param rows Receives every user as soon as it is decoded, on the calling thread.
+     * @return The cursor of the next page, or null if this was the last page.
+     */
+    public String streamUsersPage(String cursor, Consumer<User> rows) {
+        return streamPage(pagePath("/admin/users", cursor, STREAM_PAGE_SIZE), CodecRegistry.users(), rows);
+    }
+
+    /**
+     * Stream a page of articles that follows the first one, see {@link #streamPage}.
+     * @param cursor The cursor returned with the previous page.
+     * @param rows Receives every article as soon as it is decoded, on the calling thread.
+     * @return The cursor of the next page, or null if this was the last page.
+     */
+    public String streamArticlesPage(String cursor, Consumer<Article> rows) {
+        return streamPage(pagePath("/admin/articles", cursor, STREAM_PAGE_SIZE), CodecRegistry.articles(), rows);
+    }
+
+    /**
+     * Stream a page of comments that follows the first one, see {@link #streamPage}.
+     * @param cursor The cursor returned with the previous page.
+     * @param rows Receives every comment as soon as it is decoded, on the calling thread.
+     * @return The cursor of the next page, or null if this was the last page.
+     */
+    public String streamCommentsPage(String cursor, Consumer<Comment> rows) {
+        return streamPage(pagePath("/admin/comments", cursor, STREAM_PAGE_SIZE), CodecRegistry.comments(), rows);
+    }
+
+    /**
+     * Fetch a page of an admin list as NDJSON and hand every row on while the page downloads, so that a large
+     * page can be shown before it has fully arrived. A backend without the streaming mode sends the page as
+     * one object, whose rows are handed on once it has been read.
+     * Unlike first pages, these pages are neither cached nor do they move the high-water mark.
+     * @param path The path of the page, including its query.
+     * @param reader The reader for one row of the list.
+     * @param rows Receives the rows in list order.
+     * @return The cursor of the next page, or null if this was the last page or the server refused the request.
+     * @throws UncheckedIOException if the page could not be read to its end; the rows handed on so far are valid,
+     *                              the page can be requested again
+     */
+    private <T> String streamPage(String path, ObjectReader reader, Consumer<T> rows) {
+        ApiRequest request = ApiRequest.get(path)
+                .header("Accept", NDJSON)
+                .header(TIMESTAMP_FORMAT_HEADER, EPOCH_MILLIS);
+        try (ApiResponse response = send(request)) {
+            if (response.getStatusCode() == 200) {
+                String contentType = response.getHeader("Content-Type");
+                if (contentType != null && contentType.startsWith(NDJSON)) {
+                    JsonStreamDecoder.readLines(reader, response.getBody(), rows);
+                    return response.getHeader(NEXT_CURSOR_HEADER);
                 }
-            } else if (connection.getResponseCode() == 401) {
-                System.out.println("Unauthorized access");
+                Page<T> page = JsonStreamDecoder.readPage(reader, response.getBody());
+                page.getItems().forEach(rows);
+                return page.getNextCursor();
+            } else if (response.getStatusCode() == 401) {
                 JOptionPane.showMessageDialog(null, "Unauthorized: Please login first", "Error", JOptionPane.ERROR_MESSAGE);
-            } else if (connection.getResponseCode() == 403) {
-                System.out.println("Forbidden access");
+            } else if (response.getStatusCode() == 403) {
                 JOptionPane.showMessageDialog(null, "Forbidden: Admin privileges required", "Error", JOptionPane.ERROR_MESSAGE);
             } else {
-                System.out.println("Unexpected response code: " + connection.getResponseCode());
-                // 读取错误响应
-                try (BufferedReader br = new BufferedReader(new InputStreamReader(connection.getErrorStream()))) {
-                    StringBuilder errorResponse = new StringBuilder();
-                    String line;
-                    while ((line = br.readLine()) != null) {
-                        errorResponse.append(line);
-                    }
-                    System.out.println("Error response: " + errorResponse.toString());
-                }
+                System.out.println("Unexpected response code " + response.getStatusCode() + " for " + path);
             }
         } catch (IOException e) {
-            System.out.println("IO Exception: " + e.getMessage());
-            ErrorHandler.handleIOException(e);
-            e.printStackTrace();
+            throw new UncheckedIOException(e);
         }
-        return new ArrayList<>();
+        return null;
     }
 
     /**
-     * 删除文章
+     * Load the statistics and the first page of users, articles and comments with one streamed request.
+     * Each section of the bootstrap is completed as soon as it has been read, and a first page sets the
+     * high-water mark of its dataset. The sections the response does not deliver, e.g. because the stream
+     * broke off, are loaded with their own requests afterwards.
+     * @param bootstrap The sections to complete.
      */
-    public boolean deleteArticle(int articleId) {
-        try {
-            URL url = new URL(BACKEND_URL + "/admin/articles/" + articleId);
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("DELETE");
-            connection.setRequestProperty("Authorization", "Bearer " + this.token);
-            connection.connect();
+    public void loadBootstrap(Bootstrap bootstrap) {
+        String path = "/admin/bootstrap?limit=" + PAGE_SIZE;
+        ApiRequest request = ApiRequest.get(path).header(TIMESTAMP_FORMAT_HEADER, EPOCH_MILLIS);
+        boolean refused = false;
+        try (ApiResponse response = send(request)) {
+            if (response.getStatusCode() == 200) {
+                JsonStreamDecoder.readSections(CodecRegistry.siteStats(), response.getBody(), (name, parser) -> {
+                    switch (name) {
+                        case "stats":
+                            bootstrap.getStats().complete(CodecRegistry.siteStats().readValue(parser));
+                            break;
+                        case "users":
+                            Page<User> users = JsonStreamDecoder.readPage(CodecRegistry.users(), parser);
+                            setHighWaterMark(Change.USER, response);
+                            bootstrap.getUsers().complete(users);
+                            break;
+                        case "articles":
+                            Page<Article> articles = JsonStreamDecoder.readPage(CodecRegistry.articles(), parser);
+                            setHighWaterMark(Change.ARTICLE, response);
+                            bootstrap.getArticles().complete(articles);
+                            break;
+                        case "comments":
+                            Page<Comment> comments = JsonStreamDecoder.readPage(CodecRegistry.comments(), parser);
+                            setHighWaterMark(Change.COMMENT, response);
+                            bootstrap.getComments().complete(comments);
+                            break;
+                        default:
+                            parser.skipChildren();
+                            break;
+                    }
+                });
+            } else if (response.getStatusCode() == 401) {
+                JOptionPane.showMessageDialog(null, "Unauthorized: Please login first", "Error", JOptionPane.ERROR_MESSAGE);
+                refused = true;
+            } else if (response.getStatusCode() == 403) {
+                JOptionPane.showMessageDialog(null, "Forbidden: Admin privileges required", "Error", JOptionPane.ERROR_MESSAGE);
+                refused = true;
+            } else {
+                System.out.println("Unexpected response code " + response.getStatusCode() + " for " + path);
+            }
+        } catch (IOException e) {
+            // the sections read before the break stay valid
+            System.out.println("Bootstrap broke off: " + e.getMessage());
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            return;
+        }
 
-            if (connection.getResponseCode() == 200) {
-                JOptionPane.showMessageDialog(null, "Article deleted successfully", "Success", JOptionPane.INFORMATION_MESSAGE);
+        // a backend without the bootstrap route, or a broken stream, falls back to the separate requests;
+        // a refused request leaves the sections empty, the separate requests would be refused as well
+        if (!bootstrap.getStats().isDone()) {
+            bootstrap.getStats().complete(refused ? null : getSiteStats());
+        }
+        if (!bootstrap.getUsers().isDone()) {
+            bootstrap.getUsers().complete(refused ? Page.empty() : getUsersPage(null));
+        }
+        if (!bootstrap.getArticles().isDone()) {
+            bootstrap.getArticles().complete(refused ? Page.empty() : getArticlesPage(null));
+        }
+        if (!bootstrap.getComments().isDone()) {
+            bootstrap.getComments().complete(refused ? Page.empty() : getCommentsPage(null));
+        }
+    }
+
+    /**
+     * 删除评论
+     */
+    public boolean deleteComment(int commentId) {
+        try (ApiResponse response = send(ApiRequest.delete("/admin/comments/" + commentId))) {
+            if (response.getStatusCode() == 200) {
+                JOptionPane.showMessageDialog(null, "Comment deleted successfully", "Success", JOptionPane.INFORMATION_MESSAGE);
                 return true;
-            } else if (connection.getResponseCode() == 401) {
+            } else if (response.getStatusCode() == 401) {
                 JOptionPane.showMessageDialog(null, "Unauthorized: Please login first", "Error", JOptionPane.ERROR_MESSAGE);
-            } else if (connection.getResponseCode() == 403) {
+            } else if (response.getStatusCode() == 403) {
                 JOptionPane.showMessageDialog(null, "Forbidden: Admin privileges required", "Error", JOptionPane.ERROR_MESSAGE);
             }
         } catch (IOException e) {
@@ -544,59 +482,231 @@ public class BlogManagerModel {
     }
 
     /**
-     * 获取所有评论列表
+     * Search the titles and contents of all articles on the server, see {@link #streamPage}.
+     * @param query The words to search for.
+     * @param rows Receives the best matching articles as soon as each one is decoded, on the calling thread.
      */
-    public List<Comment> getAllComments() {
-        try {
-            URL url = new URL(BACKEND_URL + "/admin/comments");
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("GET");
-            connection.setRequestProperty("Authorization", "Bearer " + this.token);
-            connection.connect();
-
-            if (connection.getResponseCode() == 200) {
-                try (BufferedReader br = new BufferedReader(new InputStreamReader(connection.getInputStream()))) {
-                    StringBuilder response = new StringBuilder();
-                    String line;
-                    while ((line = br.readLine()) != null) {
-                        response.append(line);
-                    }
+    public void streamArticleSearch(String query, Consumer<Article> rows) {
+        streamPage(searchPath("articles", query), CodecRegistry.articles(), rows);
+    }
+
+    /**
+     * Search the contents of all comments on the server, see {@link #streamPage}.
+     * @param query The words to search for.
+     * @param rows Receives the best matching comments as soon as each one is decoded, on the calling thread.
+     */
+    public void streamCommentSearch(String query, Consumer<Comment> rows) {
+        streamPage(searchPath("comments", query), CodecRegistry.comments(), rows);
+    }
+
+    /**
+     * Get the users with the given ids, e.g. the users the change feed reported as changed.
+     * @param ids The ids.
+     * @return The users that still exist.
+     */
+    public List<User> getUsersByIds(int[] ids) {
+        return fetchByIds("/admin/users", ids, CodecRegistry.users());
+    }
+
+    /**
+     * Get the articles with the given ids.
+     * @param ids The ids.
+     * @return The articles that still exist.
+     */
+    public List<Article> getArticlesByIds(int[] ids) {
+        return fetchByIds("/admin/articles", ids, CodecRegistry.articles());
+    }
+
+    /**
+     * Get the comments with the given ids.
+     * @param ids The ids.
+     * @return The comments that still exist.
+     */
+    public List<Comment> getCommentsByIds(int[] ids) {
+        return fetchByIds("/admin/comments", ids, CodecRegistry.comments());
+    }
+
+    /**
+     * Open the live change feed of the backend, a stream of server-sent events.
+     * @param lastVersion The version of the last change already received, or -1 to start with the next change.
+     * @return The response, which must be closed by the caller.
+     * @throws IOException if the feed cannot be opened
+     */
+    public ApiResponse openChangeFeed(long lastVersion) throws IOException {
+        // the feed is quiet between heartbeats, the change feed watches it for staleness instead of a read timeout
+        ApiRequest request = ApiRequest.get("/admin/events").header("Accept", "text/event-stream").streaming();
+        if (lastVersion >= 0) {
+            // the standard header of a reconnecting event source, the feed continues after this version
+            request.header("Last-Event-ID", Long.toString(lastVersion));
+        }
+        return send(request);
+    }
+
+    //fetch rows of an admin list by id, in as few requests as the page size allows
+    private <T> List<T> fetchByIds(String listPath, int[] ids, ObjectReader reader) {
+        List<T> rows = new ArrayList<>();
+        for (int from = 0; from < ids.length; from += MAX_IDS_PER_REQUEST) {
+            String joined = Arrays.stream(ids, from, Math.min(from + MAX_IDS_PER_REQUEST, ids.length))
+                    .mapToObj(Integer::toString)
+                    .collect(Collectors.joining(","));
+            Page<T> page = fetchPage(listPath + "?limit=" + MAX_IDS_PER_REQUEST + "&ids=" + joined, reader, null);
+            rows.addAll(page.getItems());
+        }
+        return rows;
+    }
 
-                    ObjectMapper objectMapper = JacksonConfig.getConfiguredObjectMapper();
-                    return objectMapper.readValue(response.toString(), new TypeReference<List<Comment>>() {});
+    /**
+     * Fetch one page of an admin list and decode it from the response stream.
+     * If the page has not changed since it was last fetched, the cached page is returned instead.
+     * @param path The path of the page, including its query.
+     * @param reader The reader for one row of the list.
+     * @param dataset The dataset the page is the first page of, or null. Only first pages are kept for
+     *                revalidation, the later ones would keep a second copy of every loaded row next to the table
+     *                models. A first page also sets the high-water mark of its dataset, as the table starts over.
+     * @return The page, or an empty last page if it could not be loaded.
+     */
+    private <T> Page<T> fetchPage(String path, ObjectReader reader, String dataset) {
+        boolean cacheable = dataset != null;
+        // ask for timestamps as epoch milliseconds, they are read straight into the row store
+        ApiRequest request = ApiRequest.get(path).header(TIMESTAMP_FORMAT_HEADER, EPOCH_MILLIS);
+        if (cacheable) {
+            request = responseCache.conditional(request);
+        }
+        try (ApiResponse response = send(request)) {
+            if (response.getStatusCode() == 304 && responseCache.get(path) != null) {
+                // unchanged since the last request, nothing to download or parse
+                Page<T> cached = responseCache.get(path);
+                setHighWaterMark(dataset, response);
+                return cached.copy();
+            } else if (response.getStatusCode() == 200) {
+                Page<T> page = JsonStreamDecoder.readPage(reader, response.getBody());
+                setHighWaterMark(dataset, response);
+                // the table models change the returned list, so the cache keeps its own copy
+                if (cacheable) {
+                    responseCache.put(path, response, page.copy());
                 }
-            } else if (connection.getResponseCode() == 401) {
+                return page;
+            } else if (response.getStatusCode() == 401) {
                 JOptionPane.showMessageDialog(null, "Unauthorized: Please login first", "Error", JOptionPane.ERROR_MESSAGE);
+            } else if (response.getStatusCode() == 403) {
+                JOptionPane.showMessageDialog(null, "Forbidden: Admin privileges required", "Error", JOptionPane.ERROR_MESSAGE);
+            } else {
+                System.out.println("Unexpected response code " + response.getStatusCode() + " for " + path);
             }
         } catch (IOException e) {
             ErrorHandler.handleIOException(e);
         }
-        return new ArrayList<>();
+        return Page.empty();
+    }
+
+    private void setHighWaterMark(String dataset, ApiResponse response) {
+        String version = response.getHeader(CHANGE_VERSION_HEADER);
+        if (dataset != null && version != null) {
+            highWaterMarks.put(dataset, Long.parseLong(version));
+        }
     }
 
     /**
-     * 删除评论
+     * Get the version of the change log every loaded dataset is current up to.
+     * @return the lowest high-water mark, or -1 if a dataset has not been loaded yet
      */
-    public boolean deleteComment(int commentId) {
-        try {
-            URL url = new URL(BACKEND_URL + "/admin/comments/" + commentId);
-            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-            connection.setRequestMethod("DELETE");
-            connection.setRequestProperty("Authorization", "Bearer " + this.token);
-            connection.connect();
+    public long getHighWaterMark() {
+        long lowest = Long.MAX_VALUE;
+        for (String dataset : DATASETS) {
+            Long version = highWaterMarks.get(dataset);
+            if (version == null) {
+                return -1;
+            }
+            lowest = Math.min(lowest, version);
+        }
+        return lowest;
+    }
 
-            if (connection.getResponseCode() == 200) {
-                JOptionPane.showMessageDialog(null, "Comment deleted successfully", "Success", JOptionPane.INFORMATION_MESSAGE);
-                return true;
-            } else if (connection.getResponseCode() == 401) {
-                JOptionPane.showMessageDialog(null, "Unauthorized: Please login first", "Error", JOptionPane.ERROR_MESSAGE);
-            } else if (connection.getResponseCode() == 403) {
-                JOptionPane.showMessageDialog(null, "Forbidden: Admin privileges required", "Error", JOptionPane.ERROR_MESSAGE);
+    /**
+     * Record that every dataset is current up to a version, e.g. after the tables were restored from a snapshot.
+     * @param version the version
+     */
+    public void setHighWaterMarks(long version) {
+        for (String dataset : DATASETS) {
+            highWaterMarks.put(dataset, version);
+        }
+    }
+
+    /**
+     * Record that the changes up to a version were applied to every loaded dataset.
+     * @param version the version
+     */
+    public void advanceHighWaterMarks(long version) {
+        highWaterMarks.replaceAll((dataset, current) -> Math.max(current, version));
+    }
+
+    /**
+     * Forget the high-water marks, so that the datasets are loaded again from their first pages.
+     */
+    public void clearHighWaterMarks() {
+        highWaterMarks.clear();
+    }
+
+    /**
+     * Get what changed on the server after a version: the changed rows merged per row, with the deleted ones
+     * as tombstones. Only the ids are transferred, so catching up after a long pause costs kilobytes.
+     * @param version The version to start after, usually {@link #getHighWaterMark()}.
+     * @return The changes, {@link ChangeSet#isReset() reset} if the server no longer has all of them,
+     *         or null if they could not be loaded.
+     */
+    public ChangeSet getChangesSince(long version) {
+        ChangeSet changes = new ChangeSet();
+        long since = version;
+        while (true) {
+            ChangeLogPage page = fetchChanges(since);
+            if (page == null) {
+                return null;
+            }
+            if (page.isReset()) {
+                changes.markReset();
+                return changes;
+            }
+            page.getChanges().forEach(changes::add);
+            changes.advanceTo(page.getVersion());
+            if (!page.isMore()) {
+                return changes;
             }
+            since = page.getVersion();
+        }
+    }
+
+    private ChangeLogPage fetchChanges(long since) {
+        try (ApiResponse response = send(ApiRequest.get("/admin/changes?since=" + since))) {
+            if (response.getStatusCode() == 200) {
+                return CodecRegistry.changeLog().readValue(response.getBody());
+            }
+            System.out.println("Unexpected response code " + response.getStatusCode() + " for the changes since " + since);
         } catch (IOException e) {
             ErrorHandler.handleIOException(e);
         }
-        return false;
+        return null;
+    }
+
+    /**
+     * Build the path of one page of an admin list.
+     * @param listPath The path of the list, e.g. "/admin/users".
+     * @param cursor The cursor of the page, or null for the first page.
+     * @return The path with the page query.
+     */
+    private static String pagePath(String listPath, String cursor) {
+        return pagePath(listPath, cursor, PAGE_SIZE);
+    }
+
+    private static String pagePath(String listPath, String cursor, int limit) {
+        String path = listPath + "?limit=" + limit;
+        if (cursor != null) {
+            path += "&cursor=" + URLEncoder.encode(cursor, StandardCharsets.UTF_8);
+        }
+        return path;
+    }
+
+    private static String searchPath(String type, String query) {
+        return "/admin/search?type=" + type + "&q=" + URLEncoder.encode(query, StandardCharsets.UTF_8);
     }
 
     /**
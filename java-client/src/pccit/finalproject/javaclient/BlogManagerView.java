@@ -7,9 +7,10 @@ import javax.swing.event.ListSelectionListener;
 import javax.swing.table.TableColumnModel;
 import javax.swing.table.JTableHeader;
 import java.awt.*;
-import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
+import pccit.finalproject.javaclient.image.AvatarService;
 import pccit.finalproject.javaclient.model.*;
 
 import static pccit.finalproject.javaclient.config.Config.DEFAULT_AVATAR_URL;
@@ -31,11 +32,11 @@ public class BlogManagerView extends JPanel {
     //Table for the user list
     JTable userTable;
 
-    //List of users
-    List<User> users;
+    //Fields that filter the user, article and comment tables
+    private JTextField userFilterField, articleFilterField, commentFilterField;
 
-    //Index of the selected row in the user table
-    int selectedRow;
+    //Scroll pane of the user table, created up front so that listeners can attach to its viewport
+    private JScrollPane userScrollPane;
 
     //Listener for the user table
     private ListSelectionListener userTableSelectionListener;
@@ -45,6 +46,13 @@ public class BlogManagerView extends JPanel {
     private JPanel articlesPanel;
     private JPanel commentsPanel;
     private JPanel userInfoPanel;
+
+    //the avatar label of the user shown in the info panel, filled in once the avatar is loaded
+    private JLabel avatarLabel;
+    private int avatarUserId;
+
+    //asked to load the avatar whenever a user is displayed
+    private Consumer<User> avatarRequestListener;
     private JPanel rightTablePanel;
     
     // Statistics components
@@ -113,10 +121,10 @@ public class BlogManagerView extends JPanel {
         revalidateUserBtn.setEnabled(false);
         deleteUserBtn.setEnabled(false);
 
-        // Initialize user list and table
-        users = new ArrayList<>();
-        userTableModel = new UserTableModel(users);
+        // Initialize user table
+        userTableModel = new UserTableModel(new ArrayList<>());
         userTable = new JTable(userTableModel);
+        userScrollPane = new JScrollPane(userTable);
         
         // Initialize panels
         initializeStatsPanel();
@@ -240,6 +248,7 @@ public class BlogManagerView extends JPanel {
         userControlPanel.add(banUserBtn);
         userControlPanel.add(revalidateUserBtn);
         userControlPanel.add(deleteUserBtn);
+        userFilterField = createFilterField(userControlPanel);
         
         userPanel.add(userControlPanel, BorderLayout.NORTH);
         userPanel.add(createViewsPanel(), BorderLayout.CENTER);
@@ -282,7 +291,7 @@ public class BlogManagerView extends JPanel {
         rightTablePanel.setLayout(new BorderLayout());
 
         //call the method to display the user table
-        displayUserTable(users);
+        displayUserTable(new ArrayList<>());
 
         return rightTablePanel;
     }
@@ -292,7 +301,6 @@ public class BlogManagerView extends JPanel {
      * @param users the list of users
      */
     public void displayUserTable(List<User> users) {
-        this.users = users;
         userTableModel = new UserTableModel(users);
         userTable.setModel(userTableModel);
 
@@ -335,24 +343,26 @@ public class BlogManagerView extends JPanel {
 
         // Add a new listener
         userTableSelectionListener = e -> {
-            if (!e.getValueIsAdjusting() && userTable.getSelectedRow() != -1) {
-                selectedRow = userTable.getSelectedRow();
-                if (selectedRow >= 0) {
-                    deleteUserBtn.setEnabled(true);
-                    
-                    // Get the selected user
-                    int userId = (int) userTable.getValueAt(selectedRow, 0);
-                    User selectedUser = users.stream()
-                            .filter(user -> user.getId() == userId)
-                            .findFirst()
-                            .orElse(null);
-                    
-                    if (selectedUser != null) {
-                        displaySelectedUserInfo(selectedUser);
-                        String status = selectedUser.getStatus();
-                        banUserBtn.setEnabled(status.equals("active"));
-                        revalidateUserBtn.setEnabled(status.equals("banned"));
-                    }
+            if (e.getValueIsAdjusting()) {
+                return;
+            }
+            int selectedRow = userTable.getSelectedRow();
+            if (selectedRow < 0) {
+                // the selection is cleared when the rows are filtered, sorted or reloaded
+                banUserBtn.setEnabled(false);
+                revalidateUserBtn.setEnabled(false);
+                deleteUserBtn.setEnabled(false);
+            } else {
+                deleteUserBtn.setEnabled(true);
+
+                // Get the selected user
+                User selectedUser = userTableModel.getUserAt(selectedRow);
+
+                if (selectedUser != null) {
+                    displaySelectedUserInfo(selectedUser);
+                    String status = selectedUser.getStatus();
+                    banUserBtn.setEnabled(status.equals("active"));
+                    revalidateUserBtn.setEnabled(status.equals("banned"));
                 }
             }
         };
@@ -360,13 +370,15 @@ public class BlogManagerView extends JPanel {
         // Add the listener to the table
         userTable.getSelectionModel().addListSelectionListener(userTableSelectionListener);
 
-        rightTablePanel.removeAll();
-        rightTablePanel.add(new JScrollPane(userTable), BorderLayout.CENTER);
+        // Keep the same scroll pane across reloads so that listeners on its viewport stay attached
+        if (userScrollPane.getParent() == null) {
+            rightTablePanel.add(userScrollPane, BorderLayout.CENTER);
+        }
         rightTablePanel.revalidate();
         rightTablePanel.repaint();
 
         // Automatically select the first row if there are users
-        if (users != null && !users.isEmpty()) {
+        if (userTableModel.getRowCount() > 0) {
             userTable.setRowSelectionInterval(0, 0);
         }
     }
@@ -382,19 +394,19 @@ public class BlogManagerView extends JPanel {
         // Avatar panel with improved styling
         JPanel avatarPanel = new JPanel();
         avatarPanel.setBackground(Color.WHITE);
-        JLabel avatarLabel = new JLabel("Loading Avatar...");
+        avatarLabel = new JLabel();
         avatarLabel.setHorizontalAlignment(SwingConstants.CENTER);
-        
-        String avatarUrl = user.getAvatarUrl() == null ? DEFAULT_AVATAR_URL : "http://localhost:3000" + user.getAvatarUrl();
-
-        try {
-            ImageIcon avatarIcon = new ImageIcon(new URL(avatarUrl));
-            Image scaledImage = getScaledImage(avatarIcon);
-            avatarLabel.setIcon(new ImageIcon(scaledImage));
-            avatarLabel.setText("");
-        } catch (Exception e) {
-            avatarLabel.setText("Failed to load avatar");
-            avatarLabel.setForeground(Color.RED);
+        avatarUserId = user.getId();
+
+        // show a cached avatar at once, otherwise a placeholder until it is loaded in the background
+        Image cached = AvatarService.shared().getCached(avatarUrlOf(user));
+        if (cached != null) {
+            avatarLabel.setIcon(new ImageIcon(cached));
+        } else {
+            avatarLabel.setIcon(new ImageIcon(AvatarService.placeholder()));
+            if (avatarRequestListener != null) {
+                avatarRequestListener.accept(user);
+            }
         }
 
         avatarPanel.add(avatarLabel);
@@ -448,35 +460,46 @@ public class BlogManagerView extends JPanel {
     }
 
     /**
-     * Get the scaled image.
-     * @param avatarIcon the avatar icon
-     * @return the scaled image
+     * Set the listener that loads the avatar of each displayed user.
+     * @param listener called on the EDT with the displayed user
      */
-    private static Image getScaledImage(ImageIcon avatarIcon) {
-        Image image = avatarIcon.getImage();
-
-        //set the largest width and height
-        int targetWidth = 270;
-        int targetHeight = 270;
-        int width = avatarIcon.getIconWidth();
-        int height= avatarIcon.getIconHeight();
-
-        //if the image is larger than the target width or height, scale the image
-        if (width > targetWidth || height > targetHeight) {
-
-            //calculate the aspect ratio and fix it
-            float aspect= (float) width / height;
-            if (width > height) {
-                targetHeight = (int) (targetWidth / aspect);
-            } else {
-                targetWidth = (int) (targetHeight * aspect);
-            }
+    public void setAvatarRequestListener(Consumer<User> listener) {
+        this.avatarRequestListener = listener;
+    }
+
+    /**
+     * Show a loaded avatar, if its user is still displayed.
+     * @param user the user the avatar belongs to
+     * @param avatar the scaled avatar
+     */
+    public void showAvatar(User user, Image avatar) {
+        if (avatarLabel != null && avatarUserId == user.getId()) {
+            avatarLabel.setIcon(new ImageIcon(avatar));
+            avatarLabel.setText("");
         }
+    }
 
-        //return the scaled image
-        return image.getScaledInstance(targetWidth, targetHeight, Image.SCALE_SMOOTH);
+    /**
+     * Show that the avatar of a user could not be loaded, if the user is still displayed.
+     * @param user the user the avatar belongs to
+     */
+    public void showAvatarFailed(User user) {
+        if (avatarLabel != null && avatarUserId == user.getId()) {
+            avatarLabel.setText("Failed to load avatar");
+            avatarLabel.setForeground(Color.RED);
+        }
     }
 
+    /**
+     * Get the url of the avatar of a user.
+     * @param user the user
+     * @return the url of the avatar, or of the default avatar
+     */
+    public static String avatarUrlOf(User user) {
+        return user.getAvatarUrl() == null ? DEFAULT_AVATAR_URL : "http://localhost:3000" + user.getAvatarUrl();
+    }
+
+
     /**
      * Get the main panel.
      * @return the main panel
@@ -609,6 +632,7 @@ public class BlogManagerView extends JPanel {
         
         buttonPanel.add(deleteArticleButton);
         buttonPanel.add(viewArticleButton);
+        articleFilterField = createFilterField(buttonPanel);
 
         // 创建文章表格
         articlesTable = new JTable();
@@ -630,6 +654,7 @@ public class BlogManagerView extends JPanel {
         
         buttonPanel.add(deleteCommentButton);
         buttonPanel.add(viewCommentButton);
+        commentFilterField = createFilterField(buttonPanel);
 
         // 创建评论表格
         commentsTable = new JTable();
@@ -640,6 +665,20 @@ public class BlogManagerView extends JPanel {
         commentsPanel.add(new JScrollPane(commentsTable), BorderLayout.CENTER);
     }
 
+    /**
+     * Add a filter label and field to a button panel.
+     * @param panel the panel
+     * @return the filter field
+     */
+    private JTextField createFilterField(JPanel panel) {
+        JTextField filterField = new JTextField(20);
+        filterField.setToolTipText("Show only the rows containing every word typed here");
+        panel.add(Box.createHorizontalStrut(20));
+        panel.add(new JLabel("Filter:"));
+        panel.add(filterField);
+        return filterField;
+    }
+
     private void styleTable(JTable table) {
         table.setShowGrid(true);
         table.setGridColor(new Color(224, 224, 224));
@@ -666,6 +705,9 @@ public class BlogManagerView extends JPanel {
     public JButton getViewCommentButton() { return viewCommentButton; }
     public JTable getArticlesTable() { return articlesTable; }
     public JTable getCommentsTable() { return commentsTable; }
+    public JTextField getUserFilterField() { return userFilterField; }
+    public JTextField getArticleFilterField() { return articleFilterField; }
+    public JTextField getCommentFilterField() { return commentFilterField; }
 }
 
 
@@ -1,8 +1,11 @@
 package pccit.finalproject.javaclient;
 
 import javax.swing.*;
+import java.io.InterruptedIOException;
 import java.net.ConnectException;
+import java.nio.channels.ClosedByInterruptException;
 import java.net.SocketTimeoutException;
+import java.net.http.HttpTimeoutException;
 
 /**
  * An error handler class that handles I/O exceptions.
@@ -14,9 +17,14 @@ public class ErrorHandler {
      * @param e the exception to handle
      */
     public static void handleIOException(Exception e) {
+        if (isCancellation(e)) {
+            // the call was cancelled, e.g. because a newer request replaced it
+            System.out.println("Request cancelled: " + e.getMessage());
+            return;
+        }
         if (e instanceof ConnectException) {
             JOptionPane.showMessageDialog(null, "Unable to connect to the server. Please check your network connection", "Error", JOptionPane.ERROR_MESSAGE);
-        } else if (e instanceof SocketTimeoutException) {
+        } else if (e instanceof SocketTimeoutException || e instanceof HttpTimeoutException) {
             JOptionPane.showMessageDialog(null, "Timed out. Please try again later.", "Error", JOptionPane.ERROR_MESSAGE);
         } else {
             JOptionPane.showMessageDialog(null, "An I/O error occurred:"+e.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
@@ -24,4 +32,24 @@ public class ErrorHandler {
         e.printStackTrace();
     }
 
+    /**
+     * Whether an exception was caused by cancelling the call, rather than by the server or the network.
+     * A call interrupted while it reads a response body fails with a plain IOException caused by an
+     * InterruptedException, so the interrupt flag and the causes are checked as well as the type.
+     * @param e the exception
+     * @return true if the call was cancelled
+     */
+    public static boolean isCancellation(Throwable e) {
+        if (Thread.currentThread().isInterrupted()) {
+            return true;
+        }
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof InterruptedException || cause instanceof ClosedByInterruptException
+                    || (cause instanceof InterruptedIOException && !(cause instanceof SocketTimeoutException))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
 }
@@ -0,0 +1,350 @@
+package pccit.finalproject.javaclient;
+
+import pccit.finalproject.javaclient.concurrent.SwingExecutor;
+import pccit.finalproject.javaclient.model.ListTableModel;
+import pccit.finalproject.javaclient.model.Page;
+import pccit.finalproject.javaclient.model.PageWindow;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.HierarchyEvent;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+import static pccit.finalproject.javaclient.config.Config.PAGE_MAX_RETRY_MILLIS;
+import static pccit.finalproject.javaclient.config.Config.PAGE_PREFETCH_ROWS;
+import static pccit.finalproject.javaclient.config.Config.PAGE_RETRY_MILLIS;
+import static pccit.finalproject.javaclient.config.Config.PAGE_WINDOW_PAGES;
+
+/**
+ * Loads the pages of an admin list on demand while the user scrolls a table.
+ * When the viewport comes within {@code PAGE_PREFETCH_ROWS} rows of the last loaded row,
+ * the next page is requested in the background and appended to the table model,
+ * so it is usually there before the user reaches the end.
+ * The rows of a page are appended in batches while the page downloads, see {@link RowBatcher}.
+ * After every page the viewport is checked again, so loading goes on while the rows do not reach the prefetch
+ * distance, e.g. under a filter; a page that failed is requested again after a growing delay.
+ * <p>
+ * Only a window of {@code PAGE_WINDOW_PAGES} pages is kept. Loading a page at one end of the window drops the
+ * page at the other end from the table; a dropped page is requested again by its cursor when the user scrolls
+ * back to it. The rows in view keep their place on screen. While the shown rows are near both ends of the window,
+ * e.g. under a narrow filter, nothing is dropped, as the filter would lose the matches of the dropped pages.
+ * @param <T> the type of the rows
+ */
+public class PageLoader<T> {
+
+    private final JTable table;
+    private final BiFunction<String, Consumer<T>, CompletableFuture<String>> source;
+    private final TableFilter<T> filter;
+    private final ToIntFunction<T> idOf;
+
+    //the cursors of the dropped pages before the window, the page right before the window last
+    private final Deque<String> dropped = new ArrayDeque<>();
+
+    //the kept pages, in list order
+    private final List<LoadedPage> pages = new ArrayList<>();
+
+    //cursor of the page after the window, or null when the window reaches the end of the list
+    private String nextCursor;
+
+    //the page request that is running, or null
+    private CompletableFuture<String> loading;
+
+    //incremented on reset so that pages requested for an older list are dropped
+    private int generation;
+
+    //requests the failed page again; the delay doubles with every failure in a row
+    private final Timer retryTimer;
+    private int retryDelay = PAGE_RETRY_MILLIS;
+
+    /**
+     * Constructor
+     * @param table the table showing the list, which must already be inside a scroll pane; its model must be
+     *              the {@link ListTableModel} of the list whenever a page arrives
+     * @param source starts streaming the page for a cursor in the background, handing every row to the consumer
+     *               as soon as it is decoded; completes with the cursor of the following page
+     * @param filter the filter of the table, which indexes the added rows and forgets the dropped ones
+     * @param idOf returns the id of a row
+     */
+    public PageLoader(JTable table, BiFunction<String, Consumer<T>, CompletableFuture<String>> source,
+                      TableFilter<T> filter, ToIntFunction<T> idOf) {
+        this.table = table;
+        this.source = source;
+        this.filter = filter;
+        this.idOf = idOf;
+        this.retryTimer = new Timer(PAGE_RETRY_MILLIS, e -> loadMoreIfNeeded());
+        this.retryTimer.setRepeats(false);
+
+        JViewport viewport = (JViewport) SwingUtilities.getAncestorOfClass(JViewport.class, table);
+        if (viewport != null) {
+            // fires on scrolling, resizing and whenever rows are added
+            viewport.addChangeListener(e -> loadMoreIfNeeded());
+        }
+        // the table may sit on a hidden card until the user opens its tab
+        table.addHierarchyListener(e -> {
+            if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0) {
+                loadMoreIfNeeded();
+            }
+        });
+    }
+
+    /**
+     * Start over after the first page of the list has been loaded.
+     * @param firstPage the first page, already shown in the table
+     */
+    public void reset(Page<T> firstPage) {
+        LoadedPage page = new LoadedPage(null);
+        page.add(firstPage.getItems());
+        page.complete = true;
+        restart(List.of(), List.of(page), firstPage.getNextCursor());
+    }
+
+    /**
+     * Start over with the window of a restored table, e.g. one read from a snapshot.
+     * @param window the window, whose rows are already in the table or about to be added
+     */
+    public void restore(PageWindow window) {
+        List<LoadedPage> restored = new ArrayList<>();
+        for (int i = 0; i < window.getCursors().size(); i++) {
+            LoadedPage page = new LoadedPage(window.getCursors().get(i));
+            page.ids = window.getIds().get(i);
+            page.size = page.ids.length;
+            page.complete = true;
+            restored.add(page);
+        }
+        restart(window.getDroppedCursors(), restored, window.getNextCursor());
+    }
+
+    private void restart(List<String> droppedCursors, List<LoadedPage> kept, String next) {
+        generation++;
+        if (loading != null) {
+            // the page belongs to the old list
+            loading.cancel(true);
+            loading = null;
+        }
+        retryTimer.stop();
+        retryDelay = PAGE_RETRY_MILLIS;
+        dropped.clear();
+        dropped.addAll(droppedCursors);
+        pages.clear();
+        pages.addAll(kept);
+        nextCursor = next;
+        loadMoreIfNeeded();
+    }
+
+    /**
+     * Whether there are pages that are not in the table, after the window or dropped before it.
+     * @return true if the list is incomplete
+     */
+    public boolean hasMore() {
+        return nextCursor != null || !dropped.isEmpty();
+    }
+
+    /**
+     * Get the pages the table holds, e.g. to keep them in a snapshot.
+     * @return a copy of the window
+     */
+    public PageWindow getWindow() {
+        List<String> cursors = new ArrayList<>();
+        List<int[]> ids = new ArrayList<>();
+        for (LoadedPage page : pages) {
+            cursors.add(page.cursor);
+            ids.add(Arrays.copyOf(page.ids, page.size));
+        }
+        return new PageWindow(new ArrayList<>(dropped), cursors, ids, nextCursor);
+    }
+
+    /**
+     * Request the next page if the viewport is close to the last loaded row,
+     * or the dropped page before the window if it is close to the first one.
+     */
+    public void loadMoreIfNeeded() {
+        if (loading != null || retryTimer.isRunning() || !table.isShowing()) {
+            return;
+        }
+        boolean nearEnd = isNearEnd();
+        if (nextCursor != null && nearEnd) {
+            loadNext();
+        } else if (!dropped.isEmpty() && !nearEnd && isNearStart()) {
+            loadPrevious();
+        }
+    }
+
+    //append the page after the window while it downloads
+    private void loadNext() {
+        // a page that failed keeps the rows that had arrived, the retry adds the rest to it
+        LoadedPage page = pages.isEmpty() || pages.get(pages.size() - 1).complete ? null : pages.get(pages.size() - 1);
+        if (page == null) {
+            page = new LoadedPage(nextCursor);
+            pages.add(page);
+        }
+        LoadedPage target = page;
+        int requestGeneration = generation;
+        // rows of a page that belongs to an older list are dropped; merged rather than appended, as rows found by a
+        // search may already be in the table
+        RowBatcher<T> batcher = new RowBatcher<>(rows -> {
+            if (requestGeneration == generation) {
+                List<T> added = model().merge(rows);
+                target.add(added);
+                filter.added(added);
+            }
+        });
+        load(nextCursor, batcher, requestGeneration, cursor -> {
+            batcher.flush();
+            target.complete = true;
+            nextCursor = cursor;
+            dropFirstPages();
+        }, batcher::flush);
+    }
+
+    //insert the dropped page before the window once it has downloaded; it is above the viewport, so it is not shown
+    //while it arrives
+    private void loadPrevious() {
+        String cursor = dropped.peekLast();
+        int requestGeneration = generation;
+        List<T> rows = Collections.synchronizedList(new ArrayList<>());
+        load(cursor, rows::add, requestGeneration, next -> {
+            dropped.removeLast();
+            LoadedPage page = new LoadedPage(cursor);
+            page.complete = true;
+            keepViewport(() -> {
+                List<T> added;
+                synchronized (rows) {
+                    added = model().prepend(rows);
+                }
+                page.add(added);
+                filter.added(added);
+            });
+            pages.add(0, page);
+            dropLastPages();
+        }, () -> { });
+    }
+
+    //request a page; the callbacks run on the EDT and only for the current list
+    private void load(String cursor, Consumer<T> rows, int requestGeneration, Consumer<String> loaded, Runnable failed) {
+        loading = source.apply(cursor, rows);
+        loading.whenCompleteAsync((next, error) -> {
+            if (requestGeneration != generation) {
+                return;
+            }
+            loading = null;
+            if (error == null) {
+                retryDelay = PAGE_RETRY_MILLIS;
+                loaded.accept(next);
+                // the rows added while the page was loading did not trigger a check of their own
+                loadMoreIfNeeded();
+            } else {
+                // keep the cursor and request the page again once the delay has passed
+                failed.run();
+                error.printStackTrace();
+                retryTimer.setInitialDelay(retryDelay);
+                retryTimer.restart();
+                retryDelay = Math.min(retryDelay * 2, PAGE_MAX_RETRY_MILLIS);
+            }
+        }, SwingExecutor.INSTANCE);
+    }
+
+    //drop the first pages until the window is small enough again; they are requested again by their cursor
+    private void dropFirstPages() {
+        while (pages.size() > PAGE_WINDOW_PAGES && !isNearStart()) {
+            LoadedPage page = pages.remove(0);
+            dropped.addLast(page.cursor);
+            drop(page);
+        }
+    }
+
+    //drop the last pages until the window is small enough again; the window then continues with the first of them
+    private void dropLastPages() {
+        while (pages.size() > PAGE_WINDOW_PAGES && !isNearEnd()) {
+            LoadedPage page = pages.remove(pages.size() - 1);
+            nextCursor = page.cursor;
+            drop(page);
+        }
+    }
+
+    private void drop(LoadedPage page) {
+        int[] ids = Arrays.copyOf(page.ids, page.size);
+        keepViewport(() -> model().removeIds(ids));
+        for (int id : ids) {
+            filter.removed(id);
+        }
+    }
+
+    //change the rows without moving the first visible row on screen
+    private void keepViewport(Runnable change) {
+        JViewport viewport = (JViewport) SwingUtilities.getAncestorOfClass(JViewport.class, table);
+        Rectangle visible = table.getVisibleRect();
+        int anchorRow = table.rowAtPoint(new Point(0, visible.y));
+        if (viewport == null || anchorRow < 0) {
+            change.run();
+            return;
+        }
+        int anchorId = model().getIdAt(anchorRow);
+        int offset = visible.y - table.getCellRect(anchorRow, 0, true).y;
+        change.run();
+        int row = model().rowOfId(anchorId);
+        if (row >= 0) {
+            // the table has not been laid out for the new row count yet
+            table.revalidate();
+            viewport.validate();
+            Point position = viewport.getViewPosition();
+            viewport.setViewPosition(new Point(position.x, table.getCellRect(row, 0, true).y + offset));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private ListTableModel<T> model() {
+        return (ListTableModel<T>) table.getModel();
+    }
+
+    private boolean isNearEnd() {
+        if (!table.isShowing()) {
+            return false;
+        }
+        Rectangle visible = table.getVisibleRect();
+        int lastVisibleRow = table.rowAtPoint(new Point(0, visible.y + visible.height - 1));
+        if (lastVisibleRow < 0) {
+            // the rows do not fill the viewport
+            return true;
+        }
+        return lastVisibleRow >= table.getRowCount() - PAGE_PREFETCH_ROWS;
+    }
+
+    private boolean isNearStart() {
+        if (!table.isShowing()) {
+            return false;
+        }
+        Rectangle visible = table.getVisibleRect();
+        int firstVisibleRow = table.rowAtPoint(new Point(0, visible.y));
+        return firstVisibleRow < PAGE_PREFETCH_ROWS;
+    }
+
+    //a kept page, with the ids of the rows it added to the table
+    private final class LoadedPage {
+        private final String cursor;
+        private int[] ids = new int[0];
+        private int size;
+        private boolean complete;
+
+        private LoadedPage(String cursor) {
+            this.cursor = cursor;
+        }
+
+        private void add(List<T> rows) {
+            if (size + rows.size() > ids.length) {
+                ids = Arrays.copyOf(ids, Math.max(size + rows.size(), ids.length * 2));
+            }
+            for (T row : rows) {
+                ids[size++] = idOf.applyAsInt(row);
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package pccit.finalproject.javaclient;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static pccit.finalproject.javaclient.config.Config.STREAM_BATCH_MILLIS;
+import static pccit.finalproject.javaclient.config.Config.STREAM_BATCH_ROWS;
+
+/**
+ * Hands rows that are decoded one by one on a background thread to the EDT in batches, so that a table grows
+ * while its rows download, with one model event per batch instead of one per row.
+ * A batch is handed out when {@code STREAM_BATCH_ROWS} rows are waiting, or {@code STREAM_BATCH_MILLIS}
+ * after its first row arrived, whichever comes first.
+ * @param <T> the type of the rows
+ */
+public class RowBatcher<T> implements Consumer<T> {
+
+    //receives the batches on the EDT
+    private final Consumer<List<T>> sink;
+
+    //the rows that were not handed out yet, guarded by the lock
+    private List<T> pending = new ArrayList<>();
+    private final Object lock = new Object();
+
+    //hands out a batch that did not fill up in time; EDT only
+    private final Timer timer;
+
+    /**
+     * Constructor
+     * @param sink receives the batches, called on the EDT
+     */
+    public RowBatcher(Consumer<List<T>> sink) {
+        this.sink = sink;
+        this.timer = new Timer(STREAM_BATCH_MILLIS, e -> flush());
+        this.timer.setRepeats(false);
+    }
+
+    /**
+     * Add a decoded row; may be called on any thread.
+     * @param row the row
+     */
+    @Override
+    public void accept(T row) {
+        int waiting;
+        synchronized (lock) {
+            pending.add(row);
+            waiting = pending.size();
+        }
+        if (waiting == 1) {
+            SwingUtilities.invokeLater(() -> {
+                if (!timer.isRunning()) {
+                    timer.start();
+                }
+            });
+        } else if (waiting == STREAM_BATCH_ROWS) {
+            SwingUtilities.invokeLater(this::flush);
+        }
+    }
+
+    /**
+     * Hand out the waiting rows now, e.g. once the last row has been decoded. Must be called on the EDT.
+     */
+    public void flush() {
+        timer.stop();
+        List<T> batch;
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new ArrayList<>();
+        }
+        sink.accept(batch);
+    }
+}
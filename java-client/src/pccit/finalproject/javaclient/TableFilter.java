@@ -0,0 +1,203 @@
+package pccit.finalproject.javaclient;
+
+import pccit.finalproject.javaclient.concurrent.SwingExecutor;
+import pccit.finalproject.javaclient.concurrent.UiTaskScheduler;
+import pccit.finalproject.javaclient.concurrent.UiTaskScheduler.Lane;
+import pccit.finalproject.javaclient.model.ListTableModel;
+import pccit.finalproject.javaclient.search.InvertedIndex;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CancellationException;
+import java.util.function.BiFunction;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+import static pccit.finalproject.javaclient.config.Config.SEARCH_DEBOUNCE_MILLIS;
+
+/**
+ * Filters a table by the text typed into a filter field.
+ * The rows are indexed in the background as they are loaded, so each keystroke only
+ * looks up the index instead of scanning every cell.
+ * While the table is not fully loaded, the filter can also be sent to the server as a search once typing pauses,
+ * and the rows found there are merged into the table while they download.
+ * @param <T> the type of the rows
+ */
+public class TableFilter<T> {
+
+    private final JTextField field;
+    private final Function<T, String[]> textOf;
+    private final ToIntFunction<T> idOf;
+    private final UiTaskScheduler scheduler = UiTaskScheduler.shared();
+
+    private ListTableModel<T> model;
+
+    //replaced on reset, so that rows still being indexed for the old list never reach the new index
+    private InvertedIndex index = new InvertedIndex();
+
+    //the server search, and whether the table still has rows that are not loaded
+    private BiFunction<String, Consumer<T>, CompletableFuture<Void>> remoteSearch;
+    private BooleanSupplier incomplete;
+    private final Timer debounce;
+    private CompletableFuture<Void> searching;
+
+    /**
+     * Constructor
+     * @param field the filter field
+     * @param textOf returns the searchable text fields of a row
+     * @param idOf returns the id of a row
+     */
+    public TableFilter(JTextField field, Function<T, String[]> textOf, ToIntFunction<T> idOf) {
+        this.field = field;
+        this.textOf = textOf;
+        this.idOf = idOf;
+        this.debounce = new Timer(SEARCH_DEBOUNCE_MILLIS, e -> searchRemotely());
+        this.debounce.setRepeats(false);
+
+        field.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                apply();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                apply();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                apply();
+            }
+        });
+    }
+
+    /**
+     * Also search the server for rows that have not been loaded yet.
+     * @param remoteSearch searches the server for a query and hands on every row found as soon as it is decoded,
+     *                     called on the EDT
+     * @param incomplete whether some rows are not loaded yet; the server is only searched if so
+     */
+    public void setRemoteSearch(BiFunction<String, Consumer<T>, CompletableFuture<Void>> remoteSearch,
+                                BooleanSupplier incomplete) {
+        this.remoteSearch = remoteSearch;
+        this.incomplete = incomplete;
+    }
+
+    /**
+     * Start over with a newly loaded table model.
+     * @param model the table model
+     * @param rows the rows of the model
+     */
+    public void reset(ListTableModel<T> model, List<T> rows) {
+        this.model = model;
+        this.index = new InvertedIndex();
+        apply();
+        added(rows);
+    }
+
+    /**
+     * Index rows that have been appended to the table model.
+     * @param rows the appended rows
+     */
+    public void added(List<T> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        InvertedIndex target = index;
+        List<T> copy = new ArrayList<>(rows);
+        scheduler.run(Lane.BACKGROUND, null, () -> {
+            for (T row : copy) {
+                target.add(idOf.applyAsInt(row), textOf.apply(row));
+            }
+            return null;
+        }).whenComplete((ignored, error) -> {
+            // the appended rows are hidden by a running filter until they are in the index
+            if (target == index && model.isFiltered()) {
+                filterLocally();
+            }
+        });
+    }
+
+    /**
+     * Index rows again after their text changed, or index them for the first time if they are new.
+     * @param rows the changed rows
+     */
+    public void changed(List<T> rows) {
+        for (T row : rows) {
+            index.remove(idOf.applyAsInt(row));
+        }
+        added(rows);
+    }
+
+    /**
+     * Remove a deleted row from the index.
+     * @param id the id of the row
+     */
+    public void removed(int id) {
+        index.remove(id);
+    }
+
+    private void apply() {
+        if (model == null) {
+            return;
+        }
+        if (field.getText().trim().isEmpty()) {
+            cancelRemoteSearch();
+        } else if (remoteSearch != null) {
+            debounce.restart();
+        }
+        filterLocally();
+    }
+
+    //filter by the index only; rows that were just indexed must not start another server search
+    private void filterLocally() {
+        String query = field.getText().trim();
+        if (query.isEmpty()) {
+            if (model.isFiltered()) {
+                model.setFilter(null);
+            }
+            return;
+        }
+        BitSet matches = index.search(query);
+        model.setFilter(matches::get);
+    }
+
+    private void searchRemotely() {
+        String query = field.getText().trim();
+        if (model == null || query.isEmpty() || !incomplete.getAsBoolean()) {
+            return;
+        }
+        ListTableModel<T> target = model;
+        // the matches are merged in batches while they download; those of an outdated query are dropped
+        RowBatcher<T> batcher = new RowBatcher<>(found -> {
+            if (target == model && query.equals(field.getText().trim())) {
+                added(target.merge(found));
+            }
+        });
+        // keyed by this filter, so a newer query cancels the one still waiting for the server
+        searching = scheduler.submit(Lane.DETAIL, this, () -> remoteSearch.apply(query, batcher));
+        searching.whenCompleteAsync((ignored, error) -> {
+            batcher.flush();
+            // the local filter still works, so a failed search is not worth a dialog; a cancelled one is not logged
+            if (error != null && !(error instanceof CancellationException) && !ErrorHandler.isCancellation(error)) {
+                error.printStackTrace();
+            }
+        }, SwingExecutor.INSTANCE);
+    }
+
+    private void cancelRemoteSearch() {
+        debounce.stop();
+        if (searching != null) {
+            searching.cancel(true);
+            searching = null;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package pccit.finalproject.javaclient;
+
+import pccit.finalproject.javaclient.concurrent.UiTaskScheduler;
+import pccit.finalproject.javaclient.concurrent.UiTaskScheduler.Lane;
+import pccit.finalproject.javaclient.model.ListTableModel;
+
+import javax.swing.*;
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+import javax.swing.table.JTableHeader;
+import javax.swing.table.TableCellRenderer;
+import javax.swing.table.TableModel;
+import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Sorts a table whose model is a {@link ListTableModel} when a column header is clicked.
+ * Clicking a column makes it the primary sort column, or reverses it if it already is; the columns clicked
+ * before it break ties. The sort runs in the background and only the new row order is swapped in on the EDT.
+ * The sort is kept when the table gets a new model and redone when rows are added.
+ */
+public class TableSorter {
+
+    //the number of columns that take part in a sort
+    private static final int MAX_SORT_KEYS = 3;
+
+    private final JTable table;
+    private final UiTaskScheduler scheduler = UiTaskScheduler.shared();
+    private final TableModelListener insertListener = this::rowsChanged;
+
+    private List<RowSorter.SortKey> keys = new ArrayList<>();
+    private ListTableModel<?> model;
+
+    //whether a sort is running, and whether rows were added while it ran
+    private boolean sorting;
+    private boolean stale;
+
+    /**
+     * Constructor
+     * @param table the table
+     */
+    public TableSorter(JTable table) {
+        this.table = table;
+
+        JTableHeader header = table.getTableHeader();
+        header.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int column = header.columnAtPoint(e.getPoint());
+                if (SwingUtilities.isLeftMouseButton(e) && column >= 0) {
+                    toggle(table.convertColumnIndexToModel(column));
+                }
+            }
+        });
+
+        // show the direction of the sort columns next to their names
+        TableCellRenderer defaultRenderer = header.getDefaultRenderer();
+        header.setDefaultRenderer((t, value, selected, focused, row, column) -> {
+            Component component = defaultRenderer.getTableCellRendererComponent(t, value, selected, focused, row, column);
+            if (component instanceof JLabel) {
+                JLabel label = (JLabel) component;
+                label.setIcon(iconFor(t.convertColumnIndexToModel(column)));
+                label.setHorizontalTextPosition(SwingConstants.LEADING);
+            }
+            return component;
+        });
+
+        table.addPropertyChangeListener("model", e -> attach(table.getModel()));
+        attach(table.getModel());
+    }
+
+    private void attach(TableModel tableModel) {
+        if (model != null) {
+            model.removeTableModelListener(insertListener);
+        }
+        model = tableModel instanceof ListTableModel ? (ListTableModel<?>) tableModel : null;
+        if (model != null) {
+            model.addTableModelListener(insertListener);
+            if (!keys.isEmpty()) {
+                sort();
+            }
+        }
+    }
+
+    private void toggle(int column) {
+        if (model == null || !model.isSortable(column)) {
+            return;
+        }
+        List<RowSorter.SortKey> toggled = new ArrayList<>(keys);
+        if (!toggled.isEmpty() && toggled.get(0).getColumn() == column) {
+            SortOrder order = toggled.get(0).getSortOrder() == SortOrder.ASCENDING ? SortOrder.DESCENDING : SortOrder.ASCENDING;
+            toggled.set(0, new RowSorter.SortKey(column, order));
+        } else {
+            toggled.removeIf(key -> key.getColumn() == column);
+            toggled.add(0, new RowSorter.SortKey(column, SortOrder.ASCENDING));
+            if (toggled.size() > MAX_SORT_KEYS) {
+                toggled.subList(MAX_SORT_KEYS, toggled.size()).clear();
+            }
+        }
+        keys = toggled;
+        sort();
+    }
+
+    private void rowsChanged(TableModelEvent e) {
+        if (e.getType() != TableModelEvent.INSERT || keys.isEmpty()) {
+            return;
+        }
+        // rows arrive page by page, so rather than restarting a running sort, sort once more when it is done
+        if (sorting) {
+            stale = true;
+        } else {
+            sort();
+        }
+    }
+
+    private void sort() {
+        ListTableModel<?> target = model;
+        ListTableModel.Sort sort = target.prepareSort(keys);
+        sorting = true;
+        stale = false;
+        // keyed by this sorter, so that a newer sort replaces one that has not finished
+        scheduler.run(Lane.DETAIL, this, () -> {
+            sort.compute();
+            return sort;
+        }).whenComplete((computed, error) -> {
+            if (error instanceof CancellationException) {
+                return;
+            }
+            sorting = false;
+            if (error != null) {
+                error.printStackTrace();
+                return;
+            }
+            if (target != model) {
+                return;
+            }
+            if (!apply(computed) || stale) {
+                sort();
+            }
+            table.getTableHeader().repaint();
+        });
+    }
+
+    //swap the new order in and keep the selected row selected
+    private boolean apply(ListTableModel.Sort sort) {
+        int selectedRow = table.getSelectedRow();
+        boolean selected = selectedRow >= 0;
+        int selectedId = selected ? model.getIdAt(selectedRow) : 0;
+        if (!model.applySort(sort)) {
+            return false;
+        }
+        if (selected) {
+            int row = model.rowOfId(selectedId);
+            if (row >= 0) {
+                table.setRowSelectionInterval(row, row);
+            }
+        }
+        return true;
+    }
+
+    private Icon iconFor(int column) {
+        List<RowSorter.SortKey> shown = model != null ? model.getSortKeys() : List.of();
+        if (shown.isEmpty() || shown.get(0).getColumn() != column) {
+            return null;
+        }
+        return UIManager.getIcon(shown.get(0).getSortOrder() == SortOrder.ASCENDING
+                ? "Table.ascendingSortIcon" : "Table.descendingSortIcon");
+    }
+}
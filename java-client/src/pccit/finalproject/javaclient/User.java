@@ -1,6 +1,11 @@
 package pccit.finalproject.javaclient;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import pccit.finalproject.javaclient.codec.EpochMillisDeserializer;
+import pccit.finalproject.javaclient.model.ColumnStore;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -27,9 +32,10 @@ public class User {
     private String bio;
     private String avatarUrl;
 
-    //LocalDateTime using format like "2025/1/1 13:38:34"
-    @JsonFormat(pattern = "yyyy/M/d HH:mm:ss")
-    private LocalDateTime createdAt;
+    //epoch milliseconds, sent as a number by the admin endpoints
+    @JsonProperty("createdAt")
+    @JsonDeserialize(using = EpochMillisDeserializer.class)
+    private long createdAtMillis = ColumnStore.Timestamps.NONE;
 
     //status
     private String status;
@@ -71,7 +77,7 @@ public class User {
         this.dateOfBirth = dateOfBirth;
         this.bio = bio;
         this.avatarUrl = avatarUrl;
-        this.createdAt = createdAt;
+        this.createdAtMillis = ColumnStore.Timestamps.toEpochMillis(createdAt);
         this.status = status;
         this.articleCount = articleCount;
         this.commentCount = commentCount;
@@ -104,8 +110,13 @@ public class User {
         return avatarUrl;
     }
 
+    @JsonIgnore
     public LocalDateTime getCreatedAt() {
-        return createdAt;
+        return ColumnStore.Timestamps.toDateTime(createdAtMillis);
+    }
+
+    public long getCreatedAtMillis() {
+        return createdAtMillis;
     }
 
     public boolean getHasAvatar() {
@@ -124,4 +135,21 @@ public class User {
         return status;
     }
 
+    //setter methods for the fields that change after moderation
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public void setArticleCount(int articleCount) {
+        this.articleCount = articleCount;
+    }
+
+    public void setCommentCount(int commentCount) {
+        this.commentCount = commentCount;
+    }
+
+    public void setCreatedAtMillis(long createdAtMillis) {
+        this.createdAtMillis = createdAtMillis;
+    }
+
 }
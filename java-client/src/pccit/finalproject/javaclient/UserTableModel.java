@@ -1,63 +1,166 @@
 package pccit.finalproject.javaclient;
 
-import javax.swing.table.AbstractTableModel;
+import pccit.finalproject.javaclient.model.ColumnStore;
+import pccit.finalproject.javaclient.model.ListTableModel;
+
 import javax.swing.table.DefaultTableCellRenderer;
 import java.awt.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * The table model for the user table.
  */
-public class UserTableModel extends AbstractTableModel {
-
-    //list of users to display in the table.
-    private final List<User> users;
+public class UserTableModel extends ListTableModel<User> {
 
     //column names
     private final String[] columnNames = {"ID", "Username", "Real Name", "Date of Birth", "Bio", "Avatar URL", "Created At", "status", "ArticleCount", "CommentCount", "HasAvatar"};
 
+    //column types, so that numbers are rendered as such; dates are shown as cached strings
+    private final Class<?>[] columnClasses = {Integer.class, String.class, String.class, String.class, String.class, String.class, String.class, String.class, Integer.class, Integer.class, Boolean.class};
+
+    private final ColumnStore.Texts usernames = store.texts();
+    private final ColumnStore.Texts realNames = store.texts();
+    private final ColumnStore.Dates datesOfBirth = store.dates();
+    private final ColumnStore.Texts bios = store.texts();
+    private final ColumnStore.Texts avatarUrls = store.texts();
+    private final ColumnStore.Timestamps createdAt = store.timestamps();
+    private final ColumnStore.Dictionary statuses = store.dictionary();
+    private final ColumnStore.Ints articleCounts = store.ints();
+    private final ColumnStore.Ints commentCounts = store.ints();
+    private final ColumnStore.Flags hasAvatar = store.flags();
+
+    //the id of every username, for the counters that are adjusted by username
+    private final Map<String, Integer> idsByUsername = new HashMap<>();
+
+    //the dates as shown, filled in when a row is first painted and cleared when it changes
+    private final ColumnStore.Texts dateOfBirthText = store.texts();
+    private final ColumnStore.Texts createdAtText = store.texts();
+
     /**
      * Constructor
      * @param users list of users to display in the table.
      */
-    public UserTableModel(List<User> users) {this.users = users;}
+    public UserTableModel(List<User> users) {append(users);}
+
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
 
     @Override
-    public int getRowCount() {
-        return users.size();
+    public Class<?> getColumnClass(int column) {
+        return columnClasses[column];
     }
 
     @Override
-    public int getColumnCount() {
-        return columnNames.length;
+    protected int idOf(User user) {
+        return user.getId();
+    }
+
+    @Override
+    protected void write(int position, User user) {
+        usernames.set(position, user.getUsername());
+        realNames.set(position, user.getRealName());
+        datesOfBirth.setDate(position, user.getDateOfBirth());
+        bios.set(position, user.getBio());
+        avatarUrls.set(position, user.getAvatarUrl());
+        createdAt.set(position, user.getCreatedAtMillis());
+        statuses.set(position, user.getStatus());
+        articleCounts.set(position, user.getArticleCount());
+        commentCounts.set(position, user.getCommentCount());
+        hasAvatar.set(position, user.getHasAvatar());
+        if (user.getUsername() != null) {
+            idsByUsername.put(user.getUsername(), user.getId());
+        }
+        dateOfBirthText.set(position, null);
+        createdAtText.set(position, null);
+    }
+
+    @Override
+    protected User read(int position) {
+        return new User(idAt(position), usernames.get(position), realNames.get(position),
+                datesOfBirth.getDate(position), bios.get(position), avatarUrls.get(position),
+                createdAt.getDateTime(position), statuses.get(position), articleCounts.get(position),
+                commentCounts.get(position), hasAvatar.get(position));
     }
 
     @Override
-    public Object getValueAt(int rowIndex, int columnIndex) {
-        User user = users.get(rowIndex);
+    protected ListTableModel<User> newEmpty() {
+        return new UserTableModel(new ArrayList<>());
+    }
+
+    @Override
+    protected Object valueAt(int position, int columnIndex) {
         switch (columnIndex) {
             case 0:
-                return user.getId();
+                return idAt(position);
             case 1:
-                return user.getUsername();
+                return usernames.get(position);
             case 2:
-                return user.getRealName();
+                return realNames.get(position);
             case 3:
-                return user.getDateOfBirth();
+                String dateOfBirth = dateOfBirthText.get(position);
+                if (dateOfBirth == null) {
+                    LocalDate date = datesOfBirth.getDate(position);
+                    dateOfBirth = date != null ? date.toString() : "";
+                    dateOfBirthText.set(position, dateOfBirth);
+                }
+                return dateOfBirth;
             case 4:
-                return user.getBio();
+                return bios.get(position);
             case 5:
-                return user.getAvatarUrl();
+                return avatarUrls.get(position);
             case 6:
-                return user.getCreatedAt();
+                String created = createdAtText.get(position);
+                if (created == null) {
+                    LocalDateTime dateTime = createdAt.getDateTime(position);
+                    created = dateTime != null ? dateTime.toString() : "";
+                    createdAtText.set(position, created);
+                }
+                return created;
             case 8:
-                return user.getCommentCount();
+                return commentCounts.get(position);
             case 9:
-                return user.getArticleCount();
+                return articleCounts.get(position);
             case 10:
-                return user.getHasAvatar();
+                return hasAvatar.get(position);
+            case 7:
+                return statuses.get(position);
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    protected ColumnStore.Column sortColumn(int column) {
+        switch (column) {
+            case 0:
+                return ids;
+            case 1:
+                return usernames;
+            case 2:
+                return realNames;
+            case 3:
+                return datesOfBirth;
+            case 4:
+                return bios;
+            case 5:
+                return avatarUrls;
+            case 6:
+                return createdAt;
             case 7:
-                return user.getStatus();
+                return statuses;
+            case 8:
+                return commentCounts;
+            case 9:
+                return articleCounts;
+            case 10:
+                return hasAvatar;
             default:
                 return null;
         }
@@ -68,6 +171,62 @@ public class UserTableModel extends AbstractTableModel {
         return columnNames[column];
     }
 
+    /**
+     * Append the users of a newly loaded page.
+     * @param page the users to append
+     */
+    public void appendUsers(List<User> page) {
+        append(page);
+    }
+
+    /**
+     * Remove the user with the given id.
+     * @param id the user id
+     * @return the removed user, or null if it is not in the table
+     */
+    public User removeById(int id) {
+        return remove(id);
+    }
+
+    /**
+     * Replace the user that has the same id as the given one and repaint its row.
+     * @param user the updated user
+     * @return true if the user was found and updated
+     */
+    public boolean updateUser(User user) {
+        return update(user);
+    }
+
+    /**
+     * Get the user shown in a row.
+     * @param row the row index
+     * @return the user
+     */
+    public User getUserAt(int row) {
+        return rowAt(row);
+    }
+
+    /**
+     * Get the user with the given id.
+     * @param id the user id
+     * @return the user, or null if it is not in the table
+     */
+    public User getUserById(int id) {
+        return find(id);
+    }
+
+    /**
+     * Get the user with the given username.
+     * @param username the username
+     * @return the user, or null if it is not in the table
+     */
+    public User getUserByUsername(String username) {
+        Integer id = username == null ? null : idsByUsername.get(username);
+        // the entry of a removed user is left behind, so check that the user is still there
+        User user = id == null ? null : find(id);
+        return user != null && username.equals(user.getUsername()) ? user : null;
+    }
+
     /**
      * a static method to get the renderer for the status column.
      */
@@ -0,0 +1,66 @@
+package pccit.finalproject.javaclient.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import pccit.finalproject.javaclient.User;
+import pccit.finalproject.javaclient.config.JacksonConfig;
+import pccit.finalproject.javaclient.model.*;
+import pccit.finalproject.javaclient.sync.Change;
+import pccit.finalproject.javaclient.sync.ChangeLogPage;
+
+import java.io.IOException;
+
+/**
+ * Holds the readers and writers for every payload the client exchanges with the backend.
+ * They are built once from a single configured ObjectMapper, so Jackson's serializer and
+ * deserializer caches are kept for the whole session. ObjectReader and ObjectWriter are
+ * immutable and can be shared by any number of threads.
+ */
+public class CodecRegistry {
+    private static final ObjectMapper MAPPER = JacksonConfig.getConfiguredObjectMapper();
+
+    //readers for the elements of the admin list payloads
+    private static final ObjectReader USER_READER = MAPPER.readerFor(User.class);
+    private static final ObjectReader ARTICLE_READER = MAPPER.readerFor(Article.class);
+    private static final ObjectReader COMMENT_READER = MAPPER.readerFor(Comment.class);
+
+    //readers for the batches of the change feed and the responses of the change log
+    private static final ObjectReader CHANGES_READER = MAPPER.readerForListOf(Change.class);
+    private static final ObjectReader CHANGE_LOG_READER = MAPPER.readerFor(ChangeLogPage.class);
+
+    //readers and writers for the single-object payloads
+    private static final ObjectReader SITE_STATS_READER = MAPPER.readerFor(SiteStats.class);
+    private static final ObjectReader LOGIN_RESPONSE_READER = MAPPER.readerFor(LoginResponse.class);
+    private static final ObjectWriter LOGIN_REQUEST_WRITER = MAPPER.writerFor(LoginRequest.class);
+
+    private CodecRegistry() {
+    }
+
+    public static ObjectReader users() { return USER_READER; }
+    public static ObjectReader articles() { return ARTICLE_READER; }
+    public static ObjectReader comments() { return COMMENT_READER; }
+    public static ObjectReader changes() { return CHANGES_READER; }
+    public static ObjectReader changeLog() { return CHANGE_LOG_READER; }
+    public static ObjectReader siteStats() { return SITE_STATS_READER; }
+    public static ObjectReader loginResponse() { return LOGIN_RESPONSE_READER; }
+    public static ObjectWriter loginRequest() { return LOGIN_REQUEST_WRITER; }
+
+    /**
+     * Decode a small sample of every payload so that Jackson builds and caches its
+     * deserializers before the first real request. Meant to run while the login window is shown.
+     */
+    public static void warmUp() {
+        try {
+            USER_READER.readValue("{\"id\":0,\"username\":\"\",\"dateOfBirth\":\"2000-01-01\",\"createdAt\":946684800000}");
+            ARTICLE_READER.readValue("{\"id\":0,\"title\":\"\",\"createdAt\":946684800000}");
+            COMMENT_READER.readValue("{\"id\":0,\"content\":\"\",\"createdAt\":946684800000}");
+            SITE_STATS_READER.readValue("{\"users\":{\"total\":0},\"articles\":{\"total\":0},\"comments\":{\"total\":0}}");
+            LOGIN_RESPONSE_READER.readValue("{\"token\":\"\",\"user\":{\"username\":\"\",\"role\":\"\"}}");
+            LOGIN_REQUEST_WRITER.writeValueAsString(new LoginRequest("", ""));
+        } catch (IOException e) {
+            //warming up is only an optimisation, the real request will report any problem
+            System.out.println("Codec warm-up failed: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package pccit.finalproject.javaclient.codec;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import pccit.finalproject.javaclient.model.ColumnStore;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Reads a timestamp into epoch milliseconds.
+ * The admin endpoints send numbers when the client asks for {@code X-Timestamp-Format: epoch-millis}, which are
+ * read straight from the parser without any string handling. Older servers send "yyyy/M/d HH:mm:ss" strings,
+ * which are still parsed. A missing or empty timestamp becomes {@link ColumnStore.Timestamps#NONE}.
+ */
+public class EpochMillisDeserializer extends StdDeserializer<Long> {
+
+    private static final DateTimeFormatter LEGACY_FORMAT = DateTimeFormatter.ofPattern("yyyy/M/d HH:mm:ss");
+
+    public EpochMillisDeserializer() {
+        super(Long.class);
+    }
+
+    @Override
+    public Long deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getLongValue();
+        }
+        if (token == JsonToken.VALUE_STRING) {
+            String text = parser.getText().trim();
+            if (text.isEmpty()) {
+                return ColumnStore.Timestamps.NONE;
+            }
+            try {
+                return ColumnStore.Timestamps.toEpochMillis(LocalDateTime.parse(text, LEGACY_FORMAT));
+            } catch (DateTimeParseException e) {
+                return (Long) context.handleWeirdStringValue(Long.class, text, "not a timestamp");
+            }
+        }
+        return (Long) context.handleUnexpectedToken(Long.class, parser);
+    }
+
+    @Override
+    public Long getNullValue(DeserializationContext context) {
+        return ColumnStore.Timestamps.NONE;
+    }
+}
@@ -0,0 +1,133 @@
+package pccit.finalproject.javaclient.codec;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectReader;
+import pccit.finalproject.javaclient.model.Page;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Decodes lists of rows, i.e. pages, NDJSON and composite responses, straight from a response stream.
+ * Each element is bound to its target class as soon as the parser reaches it,
+ * so the payload is never held as a String or as intermediate maps.
+ */
+public class JsonStreamDecoder {
+
+    private JsonStreamDecoder() {
+    }
+
+    /**
+     * Read newline-delimited JSON objects (NDJSON) from a stream, handing each one on as soon as it is decoded.
+     * @param elementReader the reader for one object
+     * @param in the stream, which is read to its end but not closed
+     * @param rows receives the objects in stream order, on the reading thread
+     * @param <T> the object type
+     * @throws IOException if the stream cannot be read, breaks off or holds something else than objects
+     */
+    public static <T> void readLines(ObjectReader elementReader, InputStream in, Consumer<T> rows) throws IOException {
+        try (JsonParser parser = elementReader.createParser(in)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.START_OBJECT) {
+                rows.accept(elementReader.readValue(parser));
+            }
+            if (token != null) {
+                throw new JsonParseException(parser, "Expected a JSON object but found " + token);
+            }
+        }
+    }
+
+    /**
+     * Read one page of a paginated list, i.e. {"items": [...], "nextCursor": "..."}, from a stream.
+     * @param elementReader the reader for one item
+     * @param in the stream, which is read to the end of the page but not closed
+     * @param <T> the item type
+     * @return the decoded page
+     * @throws IOException if the stream cannot be read or is not a page object
+     */
+    public static <T> Page<T> readPage(ObjectReader elementReader, InputStream in) throws IOException {
+        try (JsonParser parser = elementReader.createParser(in)) {
+            parser.nextToken();
+            return readPage(elementReader, parser);
+        }
+    }
+
+    /**
+     * Read one page of a paginated list whose START_OBJECT token is the current token of a parser,
+     * e.g. a page nested in a larger response.
+     * @param elementReader the reader for one item
+     * @param parser the parser, left on the END_OBJECT token of the page
+     * @param <T> the item type
+     * @return the decoded page
+     * @throws IOException if the stream cannot be read or is not a page object
+     */
+    public static <T> Page<T> readPage(ObjectReader elementReader, JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected a page object");
+        }
+        List<T> items = new ArrayList<>();
+        String nextCursor = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+            if ("items".equals(field) && value == JsonToken.START_ARRAY) {
+                readElements(parser, elementReader, items);
+            } else if ("nextCursor".equals(field)) {
+                nextCursor = value == JsonToken.VALUE_NULL ? null : parser.getText();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return new Page<>(items, nextCursor);
+    }
+
+    /**
+     * Read a JSON object made of sections, e.g. the parts of a composite response, from a stream.
+     * Every section is handed to the handler as soon as the parser reaches it, while the following
+     * sections may still be on their way.
+     * @param codec a reader whose configuration the parser uses, usually taken from {@link CodecRegistry}
+     * @param in the stream, which is read to the end of the object but not closed
+     * @param handler reads each section
+     * @throws IOException if the stream cannot be read, is not a JSON object or breaks off
+     */
+    public static void readSections(ObjectReader codec, InputStream in, SectionHandler handler) throws IOException {
+        try (JsonParser parser = codec.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                parser.nextToken();
+                handler.read(name, parser);
+            }
+            if (parser.currentToken() != JsonToken.END_OBJECT) {
+                throw new JsonParseException(parser, "Unexpected end of the sections");
+            }
+        }
+    }
+
+    /**
+     * Reads one section of a response read by {@link #readSections}.
+     */
+    public interface SectionHandler {
+        /**
+         * Read the value of a section.
+         * @param name the name of the section
+         * @param parser the parser on the first token of the value, which must be read or skipped to its last token
+         * @throws IOException if the value cannot be read
+         */
+        void read(String name, JsonParser parser) throws IOException;
+    }
+
+    //read the objects of an array whose START_ARRAY token is the current token
+    private static <T> void readElements(JsonParser parser, ObjectReader elementReader, List<T> result) throws IOException {
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            result.add(elementReader.readValue(parser));
+        }
+    }
+}
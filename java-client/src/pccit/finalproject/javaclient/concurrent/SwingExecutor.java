@@ -0,0 +1,26 @@
+package pccit.finalproject.javaclient.concurrent;
+
+import javax.swing.*;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs tasks on the Swing event dispatch thread.
+ * Pass it to {@code thenAcceptAsync} and similar methods to publish the result of a
+ * {@link java.util.concurrent.CompletableFuture} to the UI.
+ */
+public final class SwingExecutor implements Executor {
+
+    public static final SwingExecutor INSTANCE = new SwingExecutor();
+
+    private SwingExecutor() {
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (SwingUtilities.isEventDispatchThread()) {
+            command.run();
+        } else {
+            SwingUtilities.invokeLater(command);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package pccit.finalproject.javaclient.concurrent;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the executors used for blocking background work.
+ */
+public final class TaskExecutors {
+
+    private TaskExecutors() {
+    }
+
+    /**
+     * Create an executor that runs every task on its own thread.
+     * On a JVM with virtual threads each task gets a virtual thread, so thousands of blocking calls
+     * can wait at the same time. Older JVMs fall back to a cached pool of daemon threads.
+     * @param name the name prefix of the platform threads used by the fallback
+     * @return the executor
+     */
+    public static ExecutorService newPerTaskExecutor(String name) {
+        try {
+            // looked up reflectively so that the client still builds and runs on Java 17
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger count = new AtomicInteger();
+            return Executors.newCachedThreadPool(r -> {
+                Thread thread = new Thread(r, name + "-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Run a blocking task on an executor.
+     * Unlike {@link CompletableFuture#supplyAsync}, cancelling the returned future,
+     * or completing it in any other exceptional way such as a timeout, interrupts the running task.
+     * @param work the blocking task
+     * @param executor the executor the task runs on
+     * @return the future result of the task
+     */
+    public static <T> CompletableFuture<T> supplyInterruptibly(Callable<T> work, ExecutorService executor) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> task = executor.submit(() -> {
+            try {
+                result.complete(work.call());
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        });
+        result.whenComplete((value, error) -> {
+            if (error != null) {
+                task.cancel(true);
+            }
+        });
+        return result;
+    }
+}
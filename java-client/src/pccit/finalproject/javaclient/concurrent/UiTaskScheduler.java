@@ -0,0 +1,194 @@
+package pccit.finalproject.javaclient.concurrent;
+
+import javax.swing.*;
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+
+import static pccit.finalproject.javaclient.config.Config.UI_BACKGROUND_TASKS;
+
+/**
+ * Schedules the background work started by the UI in priority lanes.
+ * <ul>
+ *     <li>{@link Lane#INTERACTIVE} tasks, started by a button, always start immediately.</li>
+ *     <li>{@link Lane#DETAIL} tasks, such as the details of the selected row, start before background tasks.</li>
+ *     <li>{@link Lane#BACKGROUND} tasks, such as list refreshes, use the slots left over.</li>
+ * </ul>
+ * A task submitted with a key supersedes the previous task with the same key: the older task is cancelled
+ * and its result is never delivered.
+ * The scheduler must be used on the EDT, and the futures it returns also complete on the EDT,
+ * so their callbacks can update the UI directly.
+ */
+public final class UiTaskScheduler {
+
+    /**
+     * The priority lanes, from the most to the least urgent.
+     */
+    public enum Lane {
+        INTERACTIVE, DETAIL, BACKGROUND
+    }
+
+    private static final UiTaskScheduler SHARED = new UiTaskScheduler(UI_BACKGROUND_TASKS);
+
+    //runs the blocking tasks submitted with run()
+    private static final ExecutorService EXECUTOR = TaskExecutors.newPerTaskExecutor("ui-task");
+
+    private final int maxRunning;
+    private final Map<Lane, ArrayDeque<Task<?>>> pending = new EnumMap<>(Lane.class);
+    private final Map<Object, Task<?>> latest = new HashMap<>();
+
+    //number of detail and background tasks that are running
+    private int running;
+
+    /**
+     * Constructor
+     * @param maxRunning the maximum number of detail and background tasks running at the same time
+     */
+    public UiTaskScheduler(int maxRunning) {
+        this.maxRunning = maxRunning;
+        for (Lane lane : Lane.values()) {
+            pending.put(lane, new ArrayDeque<>());
+        }
+    }
+
+    /**
+     * Get the scheduler shared by the whole application.
+     * @return the shared scheduler
+     */
+    public static UiTaskScheduler shared() {
+        return SHARED;
+    }
+
+    /**
+     * Schedule a task that starts an asynchronous call, e.g. a call of the async model.
+     * @param lane the lane of the task
+     * @param key the key of the task, a newer task with an equal key supersedes it; or null
+     * @param start starts the call, invoked on the EDT once the lane has a free slot
+     * @return the result of the call, completed on the EDT; cancelling it cancels the call
+     */
+    public <T> CompletableFuture<T> submit(Lane lane, Object key, Supplier<CompletableFuture<T>> start) {
+        checkEdt();
+        Task<T> task = new Task<>(lane, key, start);
+        if (key != null) {
+            Task<?> superseded = latest.put(key, task);
+            if (superseded != null) {
+                superseded.result.cancel(true);
+            }
+        }
+        task.result.whenComplete((value, error) -> {
+            if (task.result.isCancelled()) {
+                SwingExecutor.INSTANCE.execute(() -> abandon(task));
+            }
+        });
+
+        if (lane == Lane.INTERACTIVE) {
+            start(task);
+        } else {
+            pending.get(lane).add(task);
+            drain();
+        }
+        return task.result;
+    }
+
+    /**
+     * Schedule an asynchronous call without a key.
+     * @see #submit(Lane, Object, Supplier)
+     */
+    public <T> CompletableFuture<T> submit(Lane lane, Supplier<CompletableFuture<T>> start) {
+        return submit(lane, null, start);
+    }
+
+    /**
+     * Schedule a blocking task, which runs on its own thread and is interrupted when it is cancelled.
+     * @param lane the lane of the task
+     * @param key the key of the task, a newer task with an equal key supersedes it; or null
+     * @param work the blocking work
+     * @return the result of the work, completed on the EDT
+     */
+    public <T> CompletableFuture<T> run(Lane lane, Object key, Callable<T> work) {
+        return submit(lane, key, () -> TaskExecutors.supplyInterruptibly(work, EXECUTOR));
+    }
+
+    private <T> void start(Task<T> task) {
+        if (task.lane != Lane.INTERACTIVE) {
+            running++;
+        }
+        try {
+            task.call = task.start.get();
+        } catch (RuntimeException e) {
+            task.call = CompletableFuture.failedFuture(e);
+        }
+        task.call.whenCompleteAsync((value, error) -> finish(task, value, error), SwingExecutor.INSTANCE);
+    }
+
+    private <T> void finish(Task<T> task, T value, Throwable error) {
+        if (task.lane != Lane.INTERACTIVE) {
+            running--;
+        }
+        if (task.key != null && latest.get(task.key) == task) {
+            latest.remove(task.key);
+        }
+        // a superseded or cancelled task is already done, so its result is dropped here
+        if (error == null) {
+            task.result.complete(value);
+        } else {
+            task.result.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error);
+        }
+        drain();
+    }
+
+    private void abandon(Task<?> task) {
+        pending.get(task.lane).remove(task);
+        if (task.call != null) {
+            task.call.cancel(true);
+        }
+        if (task.key != null && latest.get(task.key) == task) {
+            latest.remove(task.key);
+        }
+    }
+
+    //start waiting tasks while there are free slots, detail tasks first
+    private void drain() {
+        while (running < maxRunning) {
+            Task<?> next = pending.get(Lane.DETAIL).poll();
+            if (next == null) {
+                next = pending.get(Lane.BACKGROUND).poll();
+            }
+            if (next == null) {
+                return;
+            }
+            if (!next.result.isDone()) {
+                start(next);
+            }
+        }
+    }
+
+    private static void checkEdt() {
+        if (!SwingUtilities.isEventDispatchThread()) {
+            throw new IllegalStateException("UI tasks must be scheduled on the event dispatch thread");
+        }
+    }
+
+    private static final class Task<T> {
+        final Lane lane;
+        final Object key;
+        final Supplier<CompletableFuture<T>> start;
+        final CompletableFuture<T> result = new CompletableFuture<>();
+
+        //the running call, null while the task is waiting
+        CompletableFuture<T> call;
+
+        Task(Lane lane, Object key, Supplier<CompletableFuture<T>> start) {
+            this.lane = lane;
+            this.key = key;
+            this.start = start;
+        }
+    }
+}
@@ -11,4 +11,78 @@ public class Config {
     //public static final String BACKEND_URL="https://blog-production-154c.up.railway.app/api";
 
     public static final String DEFAULT_AVATAR_URL = "http://localhost:3000/uploads/avatars/default.png";
+
+    //Width and height of the square avatars are scaled to fit in
+    public static final int AVATAR_SIZE = 270;
+
+    //Maximum number of avatar thumbnails kept in memory
+    public static final int AVATAR_MEMORY_CACHE_SIZE = 200;
+
+    //Directory the avatar thumbnails are cached in between runs
+    public static final String AVATAR_CACHE_DIR = System.getProperty("user.home") + "/.blog-manager/avatars";
+
+    //Avatars are prefetched for the visible user rows and this many rows below them
+    public static final int AVATAR_PREFETCH_ROWS = 30;
+
+    //Number of low priority threads prefetching avatars
+    public static final int AVATAR_PREFETCH_THREADS = 2;
+
+    //Timeout for opening a connection to the backend
+    public static final int CONNECT_TIMEOUT_MILLIS = 5000;
+
+    //Timeout for waiting on a response from the backend
+    public static final int READ_TIMEOUT_MILLIS = 15000;
+
+    //Maximum number of threads used by the shared HTTP client
+    public static final int HTTP_THREADS = 4;
+
+    //Background model calls that take longer than this are cancelled
+    public static final int CALL_DEADLINE_MILLIS = 30000;
+
+    //Maximum number of detail and background UI tasks running at the same time
+    public static final int UI_BACKGROUND_TASKS = 4;
+
+    //Typing must pause this long before a filter is sent to the server as a search
+    public static final int SEARCH_DEBOUNCE_MILLIS = 250;
+
+    //Number of rows requested per page from the admin list routes
+    public static final int PAGE_SIZE = 200;
+
+    //The next page is requested once the viewport is this many rows away from the last loaded row
+    public static final int PAGE_PREFETCH_ROWS = 100;
+
+    //First delay before a page that failed to load is requested again, doubled after every failure up to the maximum
+    public static final int PAGE_RETRY_MILLIS = 1000;
+    public static final int PAGE_MAX_RETRY_MILLIS = 30000;
+
+    //Number of rows requested per page while scrolling; these pages are streamed and shown while they download
+    public static final int STREAM_PAGE_SIZE = 2000;
+
+    //Number of consecutive pages of a list kept in a table; the pages further from the viewport are dropped
+    //and loaded again when the user scrolls back to them
+    public static final int PAGE_WINDOW_PAGES = 5;
+
+    //Rows of a streamed page are appended to the table in batches: once this many rows are waiting,
+    //or this many milliseconds after the first of them arrived
+    public static final int STREAM_BATCH_ROWS = 500;
+    public static final int STREAM_BATCH_MILLIS = 16;
+
+    //Changes from the live feed are merged for this long before they are applied to the tables
+    public static final int CHANGE_FLUSH_MILLIS = 200;
+
+    //First delay before the change feed reconnects, doubled after every failed attempt up to the maximum
+    public static final int CHANGE_FEED_RETRY_MILLIS = 1000;
+    public static final int CHANGE_FEED_MAX_RETRY_MILLIS = 30000;
+
+    //The change feed is reopened when nothing, not even a heartbeat, arrived for this long
+    public static final int CHANGE_FEED_STALE_MILLIS = 45000;
+
+    //Maximum number of ids asked for in one request for changed rows
+    public static final int MAX_IDS_PER_REQUEST = 500;
+
+    //Directory the last known tables are kept in between runs, one snapshot per backend and user
+    public static final String SNAPSHOT_DIR = System.getProperty("user.home") + "/.blog-manager/snapshots";
+
+    //Number of rows compressed together in a snapshot; the first block of every table is shown at once
+    public static final int SNAPSHOT_BLOCK_ROWS = 500;
 }
@@ -22,6 +22,7 @@ public class JacksonConfig {
 
     /**
      * This method creates and returns a configured ObjectMapper.
+     * Building a mapper is expensive, so request code should use the shared readers in CodecRegistry.
      * @return ObjectMapper
      */
     public static ObjectMapper getConfiguredObjectMapper() {
@@ -0,0 +1,251 @@
+package pccit.finalproject.javaclient.image;
+
+import pccit.finalproject.javaclient.concurrent.TaskExecutors;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static pccit.finalproject.javaclient.config.Config.*;
+
+/**
+ * Loads user avatars as ready-to-paint thumbnails.
+ * Thumbnails are kept in a bounded in-memory LRU cache and in a cache directory on disk,
+ * so an avatar is downloaded and scaled only once, even across restarts.
+ * Avatar urls name an uploaded file that never changes, so cached thumbnails never go stale.
+ */
+public final class AvatarService {
+
+    private static final AvatarService SHARED = new AvatarService(Paths.get(AVATAR_CACHE_DIR), AVATAR_MEMORY_CACHE_SIZE);
+
+    //the grey square shown while an avatar is loading
+    private static final BufferedImage PLACEHOLDER = createPlaceholder();
+
+    private final Path cacheDir;
+    private final Map<String, BufferedImage> memory;
+
+    //loads that are running, so concurrent requests for the same url share one download
+    private final ConcurrentHashMap<String, CompletableFuture<BufferedImage>> inFlight = new ConcurrentHashMap<>();
+
+    private final ExecutorService executor = TaskExecutors.newPerTaskExecutor("avatar-loader");
+
+    //a few low priority threads for prefetching, so prefetching never competes with the avatar being shown
+    private final ThreadPoolExecutor prefetchExecutor = newPrefetchExecutor(AVATAR_PREFETCH_THREADS);
+
+    /**
+     * Constructor
+     * @param cacheDir the directory the thumbnails are stored in
+     * @param memoryCacheSize the maximum number of thumbnails kept in memory
+     */
+    public AvatarService(Path cacheDir, int memoryCacheSize) {
+        this.cacheDir = cacheDir;
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, BufferedImage> eldest) {
+                return size() > memoryCacheSize;
+            }
+        };
+    }
+
+    /**
+     * Get the service shared by the whole application.
+     * @return the shared service
+     */
+    public static AvatarService shared() {
+        return SHARED;
+    }
+
+    /**
+     * Get the image to show while an avatar is loading.
+     * @return the placeholder
+     */
+    public static BufferedImage placeholder() {
+        return PLACEHOLDER;
+    }
+
+    /**
+     * Get a thumbnail from the memory cache without loading it.
+     * @param avatarUrl the url of the avatar
+     * @return the thumbnail, or null if it is not in memory
+     */
+    public BufferedImage getCached(String avatarUrl) {
+        synchronized (memory) {
+            return memory.get(avatarUrl);
+        }
+    }
+
+    /**
+     * Load the thumbnail of an avatar in the background.
+     * Cancelling the returned future does not stop the shared download, its result is still cached.
+     * @param avatarUrl the url of the avatar
+     * @return the thumbnail
+     */
+    public CompletableFuture<BufferedImage> load(String avatarUrl) {
+        BufferedImage cached = getCached(avatarUrl);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        // every caller gets its own future, so one of them cancelling does not affect the others
+        return loadShared(avatarUrl, executor).thenApply(image -> image);
+    }
+
+    /**
+     * Load the thumbnail of an avatar into the cache on a low priority thread.
+     * Cancelling the returned future before the prefetch has started drops it; a prefetch
+     * that has already started is finished, so that its download is not wasted.
+     * @param avatarUrl the url of the avatar
+     * @return the scheduled prefetch
+     */
+    public Future<?> prefetch(String avatarUrl) {
+        if (getCached(avatarUrl) != null || inFlight.containsKey(avatarUrl)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return prefetchExecutor.submit(() -> {
+            if (getCached(avatarUrl) == null) {
+                // runs on this prefetch thread, a click on the user meanwhile joins this load
+                loadShared(avatarUrl, Runnable::run);
+            }
+        });
+    }
+
+    /**
+     * Remove cancelled prefetches from the queue.
+     */
+    public void purgePrefetches() {
+        prefetchExecutor.purge();
+    }
+
+    //start a load, or join the load of the same url that is already running
+    private CompletableFuture<BufferedImage> loadShared(String avatarUrl, Executor loader) {
+        CompletableFuture<BufferedImage> load = new CompletableFuture<>();
+        CompletableFuture<BufferedImage> running = inFlight.putIfAbsent(avatarUrl, load);
+        if (running != null) {
+            return running;
+        }
+        loader.execute(() -> {
+            try {
+                load.complete(loadBlocking(avatarUrl));
+            } catch (Throwable t) {
+                load.completeExceptionally(t);
+            } finally {
+                inFlight.remove(avatarUrl, load);
+            }
+        });
+        return load;
+    }
+
+    private BufferedImage loadBlocking(String avatarUrl) {
+        Path file = cacheDir.resolve(cacheFileName(avatarUrl));
+        try {
+            BufferedImage thumbnail = readFromDisk(file);
+            if (thumbnail == null) {
+                thumbnail = download(avatarUrl);
+                writeToDisk(file, thumbnail);
+            }
+            synchronized (memory) {
+                memory.put(avatarUrl, thumbnail);
+            }
+            return thumbnail;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static BufferedImage download(String avatarUrl) throws IOException {
+        URLConnection connection = new URL(avatarUrl).openConnection();
+        connection.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+        connection.setReadTimeout(READ_TIMEOUT_MILLIS);
+        try (InputStream in = connection.getInputStream()) {
+            // decoded with subsampling and scaled right away, the full size image is never kept
+            return Thumbnails.read(in, AVATAR_SIZE);
+        } catch (IOException e) {
+            throw new IOException("Failed to load avatar " + avatarUrl + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static BufferedImage readFromDisk(Path file) {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try {
+            BufferedImage image = ImageIO.read(file.toFile());
+            return image == null ? null : Thumbnails.toCompatible(image);
+        } catch (IOException e) {
+            // a damaged cache file is simply downloaded again
+            return null;
+        }
+    }
+
+    private static void writeToDisk(Path file, BufferedImage thumbnail) {
+        try {
+            Files.createDirectories(file.getParent());
+            // write to a temporary file first so that a crash never leaves half a thumbnail behind
+            Path temp = Files.createTempFile(file.getParent(), "avatar", ".tmp");
+            ImageIO.write(thumbnail, "png", temp.toFile());
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // the thumbnail is still cached in memory
+            System.out.println("Failed to cache avatar: " + e.getMessage());
+        }
+    }
+
+    private static String cacheFileName(String avatarUrl) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(avatarUrl.getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder();
+            for (byte b : hash) {
+                name.append(String.format("%02x", b));
+            }
+            return name.append(".png").toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static ThreadPoolExecutor newPrefetchExecutor(int threads) {
+        AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread thread = new Thread(r, "avatar-prefetch-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static BufferedImage createPlaceholder() {
+        BufferedImage image = Thumbnails.toCompatible(new BufferedImage(AVATAR_SIZE, AVATAR_SIZE, BufferedImage.TYPE_INT_ARGB));
+        Graphics2D g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setColor(new Color(230, 230, 230));
+        g.fillOval(0, 0, AVATAR_SIZE, AVATAR_SIZE);
+        g.dispose();
+        return image;
+    }
+}
@@ -0,0 +1,126 @@
+package pccit.finalproject.javaclient.image;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+
+/**
+ * Decodes and scales images into thumbnails.
+ * Everything here is CPU heavy and must run off the EDT; the results are ready to be painted as they are.
+ */
+public final class Thumbnails {
+
+    private Thumbnails() {
+    }
+
+    /**
+     * Decode an image and scale it down so that it fits into a square.
+     * Oversized images are subsampled while they are decoded, so the full resolution image is never in memory.
+     * @param in the encoded image
+     * @param maxSize the width and height of the square
+     * @return the thumbnail
+     * @throws IOException if the image cannot be read or its format is not supported
+     */
+    public static BufferedImage read(InputStream in, int maxSize) throws IOException {
+        try (ImageInputStream stream = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = stream == null ? null : ImageIO.getImageReaders(stream);
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("Unsupported image format");
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(stream, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+
+                // keep at least twice the target size, the halving steps below take care of the rest
+                int subsampling = Math.max(1, Math.max(width, height) / (maxSize * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                if (subsampling > 1) {
+                    param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                }
+                return fit(reader.read(0, param), maxSize);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Scale an image down so that it fits into a square, keeping its aspect ratio.
+     * The image is halved with bilinear filtering until it is close to the target size, which looks
+     * as smooth as {@code SCALE_SMOOTH} at a fraction of the cost.
+     * @param image the image
+     * @param maxSize the width and height of the square
+     * @return the scaled image, in a format that paints fast on the screen
+     */
+    public static BufferedImage fit(BufferedImage image, int maxSize) {
+        //set the largest width and height
+        int targetWidth = maxSize;
+        int targetHeight = maxSize;
+        int width = image.getWidth();
+        int height = image.getHeight();
+
+        //if the image is not larger than the target width or height, keep the image
+        if (width <= targetWidth && height <= targetHeight) {
+            return toCompatible(image);
+        }
+
+        //calculate the aspect ratio and fix it
+        float aspect = (float) width / height;
+        if (width > height) {
+            targetHeight = Math.max(1, (int) (targetWidth / aspect));
+        } else {
+            targetWidth = Math.max(1, (int) (targetHeight * aspect));
+        }
+
+        BufferedImage scaled = image;
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            scaled = draw(scaled, width, height);
+        } while (width != targetWidth || height != targetHeight);
+        return scaled;
+    }
+
+    /**
+     * Copy an image into the format of the screen, unless it already has it.
+     * @param image the image
+     * @return an image that can be painted without conversion
+     */
+    public static BufferedImage toCompatible(BufferedImage image) {
+        GraphicsConfiguration config = screenConfiguration();
+        if (config == null || image.getColorModel().equals(config.getColorModel(image.getTransparency()))) {
+            return image;
+        }
+        return draw(image, image.getWidth(), image.getHeight());
+    }
+
+    private static BufferedImage draw(BufferedImage source, int width, int height) {
+        GraphicsConfiguration config = screenConfiguration();
+        BufferedImage target = config == null
+                ? new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB)
+                : config.createCompatibleImage(width, height, source.getTransparency());
+        Graphics2D g = target.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        g.drawImage(source, 0, 0, width, height, null);
+        g.dispose();
+        return target;
+    }
+
+    //the configuration of the default screen, or null when running headless
+    private static GraphicsConfiguration screenConfiguration() {
+        if (GraphicsEnvironment.isHeadless()) {
+            return null;
+        }
+        return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+    }
+}
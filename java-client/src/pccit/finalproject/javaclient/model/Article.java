@@ -1,5 +1,10 @@
 package pccit.finalproject.javaclient.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import pccit.finalproject.javaclient.codec.EpochMillisDeserializer;
+
 import java.time.LocalDateTime;
 
 public class Article {
@@ -8,7 +13,9 @@ public class Article {
     private String content;
     private String authorUsername;
     private int authorId;
-    private LocalDateTime createdAt;
+    @JsonProperty("createdAt")
+    @JsonDeserialize(using = EpochMillisDeserializer.class)
+    private long createdAtMillis = ColumnStore.Timestamps.NONE;
     private LocalDateTime updatedAt;
     private int commentCount;
     private int likeCount;
@@ -31,8 +38,13 @@ public class Article {
     public int getAuthorId() { return authorId; }
     public void setAuthorId(int authorId) { this.authorId = authorId; }
 
-    public LocalDateTime getCreatedAt() { return createdAt; }
-    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    @JsonIgnore
+    public LocalDateTime getCreatedAt() { return ColumnStore.Timestamps.toDateTime(createdAtMillis); }
+    @JsonIgnore
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAtMillis = ColumnStore.Timestamps.toEpochMillis(createdAt); }
+
+    public long getCreatedAtMillis() { return createdAtMillis; }
+    public void setCreatedAtMillis(long createdAtMillis) { this.createdAtMillis = createdAtMillis; }
 
     public LocalDateTime getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
@@ -1,24 +1,37 @@
 package pccit.finalproject.javaclient.model;
 
-import javax.swing.table.AbstractTableModel;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
 
-public class ArticleTableModel extends AbstractTableModel {
-    private final List<Article> articles;
+public class ArticleTableModel extends ListTableModel<Article> {
     private final String[] columnNames = {
         "ID", "Title", "Author", "Created At", "Views", 
         "Comments", "Status"
     };
+    private final Class<?>[] columnClasses = {
+        Integer.class, String.class, String.class, String.class, Integer.class,
+        Integer.class, String.class
+    };
     private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
-    public ArticleTableModel(List<Article> articles) {
-        this.articles = articles;
-    }
+    private final ColumnStore.Texts titles = store.texts();
+    private final ColumnStore.Texts contents = store.texts();
+    private final ColumnStore.Dictionary authors = store.dictionary();
+    private final ColumnStore.Ints authorIds = store.ints();
+    private final ColumnStore.Timestamps createdAt = store.timestamps();
+    private final ColumnStore.Timestamps updatedAt = store.timestamps();
+    private final ColumnStore.Ints commentCounts = store.ints();
+    private final ColumnStore.Ints likeCounts = store.ints();
+    private final ColumnStore.Ints viewCounts = store.ints();
+    private final ColumnStore.Dictionary statuses = store.dictionary();
 
-    @Override
-    public int getRowCount() {
-        return articles.size();
+    //formatted creation times, filled in when a row is first painted and cleared when it changes
+    private final ColumnStore.Texts createdAtText = store.texts();
+
+    public ArticleTableModel(List<Article> articles) {
+        append(articles);
     }
 
     @Override
@@ -32,29 +45,138 @@ public class ArticleTableModel extends AbstractTableModel {
     }
 
     @Override
-    public Object getValueAt(int rowIndex, int columnIndex) {
-        Article article = articles.get(rowIndex);
+    public Class<?> getColumnClass(int column) {
+        return columnClasses[column];
+    }
+
+    @Override
+    protected int idOf(Article article) {
+        return article.getId();
+    }
+
+    @Override
+    protected void write(int position, Article article) {
+        titles.set(position, article.getTitle());
+        contents.set(position, article.getContent());
+        authors.set(position, article.getAuthorUsername());
+        authorIds.set(position, article.getAuthorId());
+        createdAt.set(position, article.getCreatedAtMillis());
+        updatedAt.setDateTime(position, article.getUpdatedAt());
+        commentCounts.set(position, article.getCommentCount());
+        likeCounts.set(position, article.getLikeCount());
+        viewCounts.set(position, article.getViewCount());
+        statuses.set(position, article.getStatus());
+        createdAtText.set(position, null);
+    }
+
+    @Override
+    protected Article read(int position) {
+        Article article = new Article();
+        article.setId(idAt(position));
+        article.setTitle(titles.get(position));
+        article.setContent(contents.get(position));
+        article.setAuthorUsername(authors.get(position));
+        article.setAuthorId(authorIds.get(position));
+        article.setCreatedAtMillis(createdAt.get(position));
+        article.setUpdatedAt(updatedAt.getDateTime(position));
+        article.setCommentCount(commentCounts.get(position));
+        article.setLikeCount(likeCounts.get(position));
+        article.setViewCount(viewCounts.get(position));
+        article.setStatus(statuses.get(position));
+        return article;
+    }
+
+    @Override
+    protected ListTableModel<Article> newEmpty() {
+        return new ArticleTableModel(new ArrayList<>());
+    }
+
+    @Override
+    protected Object valueAt(int position, int columnIndex) {
         switch (columnIndex) {
             case 0:
-                return article.getId();
+                return idAt(position);
             case 1:
-                return article.getTitle();
+                return titles.get(position);
             case 2:
-                return article.getAuthorUsername();
+                return authors.get(position);
             case 3:
-                return article.getCreatedAt() != null ? article.getCreatedAt().format(formatter) : "";
+                String created = createdAtText.get(position);
+                if (created == null) {
+                    LocalDateTime dateTime = createdAt.getDateTime(position);
+                    created = dateTime != null ? dateTime.format(formatter) : "";
+                    createdAtText.set(position, created);
+                }
+                return created;
             case 4:
-                return article.getViewCount();
+                return viewCounts.get(position);
             case 5:
-                return article.getCommentCount();
+                return commentCounts.get(position);
             case 6:
-                return article.getStatus();
+                return statuses.get(position);
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    protected ColumnStore.Column sortColumn(int column) {
+        switch (column) {
+            case 0:
+                return ids;
+            case 1:
+                return titles;
+            case 2:
+                return authors;
+            case 3:
+                return createdAt;
+            case 4:
+                return viewCounts;
+            case 5:
+                return commentCounts;
+            case 6:
+                return statuses;
             default:
                 return null;
         }
     }
 
     public Article getArticleAt(int row) {
-        return articles.get(row);
+        return rowAt(row);
+    }
+
+    /**
+     * Append the articles of a newly loaded page.
+     * @param page the articles to append
+     */
+    public void appendArticles(List<Article> page) {
+        append(page);
+    }
+
+    /**
+     * Remove the article with the given id.
+     * @param id the article id
+     * @return the removed article, or null if it is not in the table
+     */
+    public Article removeById(int id) {
+        return remove(id);
+    }
+
+    /**
+     * Replace the article that has the same id as the given one.
+     * @param article the updated article
+     * @return true if the article was found and updated
+     */
+    public boolean updateArticle(Article article) {
+        return update(article);
+    }
+
+    /**
+     * Get the article with the given id.
+     * @param id the article id
+     * @return the article, or null if it is not in the table
+     */
+    public Article getArticleById(int id) {
+        return find(id);
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,33 @@
+package pccit.finalproject.javaclient.model;
+
+import pccit.finalproject.javaclient.User;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The data the dashboard starts with: the statistics and the first page of users, articles and comments.
+ * They arrive as the sections of one streamed response, and each section completes as soon as it has been read,
+ * so the first tables can be shown while the later sections are still downloading.
+ */
+public class Bootstrap {
+    private final CompletableFuture<SiteStats> stats = new CompletableFuture<>();
+    private final CompletableFuture<Page<User>> users = new CompletableFuture<>();
+    private final CompletableFuture<Page<Article>> articles = new CompletableFuture<>();
+    private final CompletableFuture<Page<Comment>> comments = new CompletableFuture<>();
+
+    public CompletableFuture<SiteStats> getStats() { return stats; }
+    public CompletableFuture<Page<User>> getUsers() { return users; }
+    public CompletableFuture<Page<Article>> getArticles() { return articles; }
+    public CompletableFuture<Page<Comment>> getComments() { return comments; }
+
+    /**
+     * Fail the sections that have not been read, e.g. when the load was cancelled or timed out.
+     * @param error the reason
+     */
+    public void fail(Throwable error) {
+        stats.completeExceptionally(error);
+        users.completeExceptionally(error);
+        articles.completeExceptionally(error);
+        comments.completeExceptionally(error);
+    }
+}
@@ -0,0 +1,561 @@
+package pccit.finalproject.javaclient.model;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Stores the rows of a table column by column, in primitive arrays instead of one object per row.
+ * Numbers and timestamps are kept unboxed, repeated strings such as a status or an author name are stored
+ * once in a dictionary and referenced by code, and only free text keeps a String per row.
+ * Rows are addressed by their position, which shifts down when an earlier row is removed.
+ * The store is not thread safe; the table models only use it on the EDT. Work on the values in the background,
+ * such as sorting, runs on a {@link Column#sortKeys snapshot}.
+ */
+public class ColumnStore {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final List<Column> columns = new ArrayList<>();
+    private int capacity = INITIAL_CAPACITY;
+    private int size;
+
+    /**
+     * Get the number of rows.
+     * @return the number of rows
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Add an int column.
+     * @return the column
+     */
+    public Ints ints() {
+        return register(new Ints());
+    }
+
+    /**
+     * Add a column of timestamps, stored as epoch milliseconds.
+     * @return the column
+     */
+    public Timestamps timestamps() {
+        return register(new Timestamps());
+    }
+
+    /**
+     * Add a column of dates, stored as epoch days.
+     * @return the column
+     */
+    public Dates dates() {
+        return register(new Dates());
+    }
+
+    /**
+     * Add a boolean column.
+     * @return the column
+     */
+    public Flags flags() {
+        return register(new Flags());
+    }
+
+    /**
+     * Add a column of free text that is different in most rows.
+     * @return the column
+     */
+    public Texts texts() {
+        return register(new Texts());
+    }
+
+    /**
+     * Add a column of strings that repeat across rows, each distinct value is stored only once.
+     * @return the column
+     */
+    public Dictionary dictionary() {
+        return register(new Dictionary());
+    }
+
+    /**
+     * Add an empty row at the end; the caller sets its values.
+     * @return the position of the row
+     */
+    public int addRow() {
+        if (size == capacity) {
+            capacity *= 2;
+            for (Column column : columns) {
+                column.resize(capacity);
+            }
+        }
+        return size++;
+    }
+
+    /**
+     * Insert empty rows and shift the rows from the position on down; the caller sets the values of the new rows.
+     * @param position the position of the first new row
+     * @param count the number of rows
+     */
+    public void insertRows(int position, int count) {
+        if (size + count > capacity) {
+            while (size + count > capacity) {
+                capacity *= 2;
+            }
+            for (Column column : columns) {
+                column.resize(capacity);
+            }
+        }
+        for (Column column : columns) {
+            column.move(position, position + count, size - position);
+            for (int i = position; i < position + count; i++) {
+                column.clear(i);
+            }
+        }
+        size += count;
+    }
+
+    /**
+     * Remove a row and shift the rows after it up by one.
+     * @param position the position of the row
+     */
+    public void remove(int position) {
+        for (Column column : columns) {
+            column.move(position + 1, position, size - position - 1);
+            column.clear(size - 1);
+        }
+        size--;
+    }
+
+    /**
+     * Remove several rows in a single pass.
+     * @param positions the positions of the rows, ascending
+     * @param count the number of positions to use
+     */
+    public void removeAll(int[] positions, int count) {
+        if (count == 0) {
+            return;
+        }
+        int to = positions[0];
+        for (int i = 0; i < count; i++) {
+            int from = positions[i] + 1;
+            int end = i + 1 < count ? positions[i + 1] : size;
+            for (Column column : columns) {
+                column.move(from, to, end - from);
+            }
+            to += end - from;
+        }
+        for (Column column : columns) {
+            for (int position = to; position < size; position++) {
+                column.clear(position);
+            }
+        }
+        size = to;
+    }
+
+    /**
+     * Copy every row into an empty store that has the same columns, added in the same order.
+     * Only the arrays are copied, which is cheap enough for the EDT; the copy can then be read on another thread
+     * while this store keeps changing.
+     * @param target the empty store
+     */
+    public void copyTo(ColumnStore target) {
+        if (target.size > 0 || target.columns.size() != columns.size()) {
+            throw new IllegalArgumentException("The target must be an empty store with the same columns");
+        }
+        int copyCapacity = Math.max(size, INITIAL_CAPACITY);
+        for (int i = 0; i < columns.size(); i++) {
+            columns.get(i).copyTo(target.columns.get(i), copyCapacity);
+        }
+        target.capacity = copyCapacity;
+        target.size = size;
+    }
+
+    private <C extends Column> C register(C column) {
+        if (size > 0) {
+            throw new IllegalStateException("Columns must be added before the first row");
+        }
+        column.resize(capacity);
+        columns.add(column);
+        return column;
+    }
+
+    //order of free text, the same as a table sorts strings: nulls first, then ignoring case
+    private static final Comparator<String> TEXT_ORDER = Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER);
+
+    //replace every value with its rank among the distinct values, so that equal values get equal ranks
+    private static int[] ranks(long[] values) {
+        long[] distinct = values.clone();
+        Arrays.parallelSort(distinct);
+        int count = unique(distinct);
+        int[] ranks = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            ranks[i] = Arrays.binarySearch(distinct, 0, count, values[i]);
+        }
+        return ranks;
+    }
+
+    private static int[] ranks(String[] values) {
+        String[] distinct = values.clone();
+        Arrays.parallelSort(distinct, TEXT_ORDER);
+        int count = 0;
+        for (int i = 0; i < distinct.length; i++) {
+            if (i == 0 || TEXT_ORDER.compare(distinct[count - 1], distinct[i]) != 0) {
+                distinct[count++] = distinct[i];
+            }
+        }
+        int[] ranks = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            ranks[i] = Arrays.binarySearch(distinct, 0, count, values[i], TEXT_ORDER);
+        }
+        return ranks;
+    }
+
+    private static int unique(long[] sorted) {
+        int count = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[count - 1] != sorted[i]) {
+                sorted[count++] = sorted[i];
+            }
+        }
+        return count;
+    }
+
+    /**
+     * One column of the store.
+     */
+    public abstract static class Column {
+        /**
+         * Take a snapshot of the column for sorting. The snapshot is taken on the calling thread and is cheap;
+         * the returned supplier does the expensive part and may be called on any thread.
+         * @param size the number of rows
+         * @return computes one int key per row, ordered like the values of the rows
+         */
+        public abstract Supplier<int[]> sortKeys(int size);
+
+        abstract void resize(int capacity);
+
+        abstract void move(int from, int to, int length);
+
+        //replace the values of a column of the same type with a copy of these, sized to a capacity
+        abstract void copyTo(Column target, int capacity);
+
+        //drop a reference held by a position that is no longer used
+        void clear(int position) {
+        }
+    }
+
+    /**
+     * A column of ints.
+     */
+    public static class Ints extends Column {
+        private int[] values = new int[0];
+
+        public int get(int position) {
+            return values[position];
+        }
+
+        public void set(int position, int value) {
+            values[position] = value;
+        }
+
+        @Override
+        public Supplier<int[]> sortKeys(int size) {
+            int[] copy = Arrays.copyOf(values, size);
+            return () -> copy;
+        }
+
+        @Override
+        void resize(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        void move(int from, int to, int length) {
+            System.arraycopy(values, from, values, to, length);
+        }
+
+        @Override
+        void copyTo(Column target, int capacity) {
+            ((Ints) target).values = Arrays.copyOf(values, capacity);
+        }
+    }
+
+    /**
+     * A column of date-times, stored as epoch milliseconds in the local time zone.
+     */
+    public static class Timestamps extends Column {
+        //marks a missing value
+        public static final long NONE = Long.MIN_VALUE;
+
+        private long[] values = new long[0];
+
+        public long get(int position) {
+            return values[position];
+        }
+
+        public void set(int position, long epochMillis) {
+            values[position] = epochMillis;
+        }
+
+        public LocalDateTime getDateTime(int position) {
+            return toDateTime(values[position]);
+        }
+
+        public void setDateTime(int position, LocalDateTime dateTime) {
+            values[position] = toEpochMillis(dateTime);
+        }
+
+        /**
+         * Convert epoch milliseconds to a local date-time.
+         * @param epochMillis the epoch milliseconds, or {@link #NONE}
+         * @return the date-time, or null
+         */
+        public static LocalDateTime toDateTime(long epochMillis) {
+            return epochMillis == NONE ? null : LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+        }
+
+        /**
+         * Convert a local date-time to epoch milliseconds.
+         * @param dateTime the date-time, or null
+         * @return the epoch milliseconds, or {@link #NONE}
+         */
+        public static long toEpochMillis(LocalDateTime dateTime) {
+            return dateTime == null ? NONE : dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        }
+
+        @Override
+        public Supplier<int[]> sortKeys(int size) {
+            long[] copy = Arrays.copyOf(values, size);
+            return () -> ranks(copy);
+        }
+
+        @Override
+        void resize(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        void move(int from, int to, int length) {
+            System.arraycopy(values, from, values, to, length);
+        }
+
+        @Override
+        void copyTo(Column target, int capacity) {
+            ((Timestamps) target).values = Arrays.copyOf(values, capacity);
+        }
+    }
+
+    /**
+     * A column of dates without a time, stored as epoch days.
+     */
+    public static class Dates extends Column {
+        //marks a missing value
+        public static final int NONE = Integer.MIN_VALUE;
+
+        private int[] values = new int[0];
+
+        public int get(int position) {
+            return values[position];
+        }
+
+        public LocalDate getDate(int position) {
+            int value = values[position];
+            return value == NONE ? null : LocalDate.ofEpochDay(value);
+        }
+
+        public void setDate(int position, LocalDate date) {
+            values[position] = date == null ? NONE : (int) date.toEpochDay();
+        }
+
+        @Override
+        public Supplier<int[]> sortKeys(int size) {
+            int[] copy = Arrays.copyOf(values, size);
+            return () -> copy;
+        }
+
+        @Override
+        void resize(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        void move(int from, int to, int length) {
+            System.arraycopy(values, from, values, to, length);
+        }
+
+        @Override
+        void copyTo(Column target, int capacity) {
+            ((Dates) target).values = Arrays.copyOf(values, capacity);
+        }
+    }
+
+    /**
+     * A column of booleans.
+     */
+    public static class Flags extends Column {
+        private boolean[] values = new boolean[0];
+
+        public boolean get(int position) {
+            return values[position];
+        }
+
+        public void set(int position, boolean value) {
+            values[position] = value;
+        }
+
+        @Override
+        public Supplier<int[]> sortKeys(int size) {
+            boolean[] copy = Arrays.copyOf(values, size);
+            return () -> {
+                int[] keys = new int[copy.length];
+                for (int i = 0; i < copy.length; i++) {
+                    keys[i] = copy[i] ? 1 : 0;
+                }
+                return keys;
+            };
+        }
+
+        @Override
+        void resize(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        void move(int from, int to, int length) {
+            System.arraycopy(values, from, values, to, length);
+        }
+
+        @Override
+        void copyTo(Column target, int capacity) {
+            ((Flags) target).values = Arrays.copyOf(values, capacity);
+        }
+    }
+
+    /**
+     * A column of free text. The strings are kept as they were decoded, which for Latin-1 text already
+     * takes one byte per character.
+     */
+    public static class Texts extends Column {
+        private String[] values = new String[0];
+
+        public String get(int position) {
+            return values[position];
+        }
+
+        public void set(int position, String value) {
+            values[position] = value;
+        }
+
+        @Override
+        public Supplier<int[]> sortKeys(int size) {
+            String[] copy = Arrays.copyOf(values, size);
+            return () -> ranks(copy);
+        }
+
+        @Override
+        void resize(int capacity) {
+            values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        void move(int from, int to, int length) {
+            System.arraycopy(values, from, values, to, length);
+        }
+
+        @Override
+        void copyTo(Column target, int capacity) {
+            ((Texts) target).values = Arrays.copyOf(values, capacity);
+        }
+
+        @Override
+        void clear(int position) {
+            values[position] = null;
+        }
+    }
+
+    /**
+     * A column of repeated strings. Each row holds the code of its value, and every distinct value
+     * is stored once, so that e.g. a million comments share a few hundred author names.
+     */
+    public static class Dictionary extends Column {
+        //the code of a null value
+        public static final int NONE = -1;
+
+        private int[] codes = new int[0];
+        private final List<String> values = new ArrayList<>();
+        private final Map<String, Integer> codesByValue = new HashMap<>();
+
+        public String get(int position) {
+            int code = codes[position];
+            return code == NONE ? null : values.get(code);
+        }
+
+        public void set(int position, String value) {
+            codes[position] = value == null ? NONE : codesByValue.computeIfAbsent(value, key -> {
+                values.add(key);
+                return values.size() - 1;
+            });
+        }
+
+        /**
+         * Get the code of the value of a row; rows with equal values have equal codes.
+         * @param position the position of the row
+         * @return the code, or {@link #NONE}
+         */
+        public int code(int position) {
+            return codes[position];
+        }
+
+        /**
+         * Get the code of a value, without adding it.
+         * @param value the value
+         * @return the code, or {@link #NONE} if no row has ever had the value
+         */
+        public int codeOf(String value) {
+            Integer code = value == null ? null : codesByValue.get(value);
+            return code == null ? NONE : code;
+        }
+
+        @Override
+        public Supplier<int[]> sortKeys(int size) {
+            int[] copy = Arrays.copyOf(codes, size);
+            String[] dictionary = values.toArray(new String[0]);
+            return () -> {
+                // only the distinct values are sorted, the rows just look up the rank of their code
+                int[] rankOfCode = ranks(dictionary);
+                int[] keys = new int[copy.length];
+                for (int i = 0; i < copy.length; i++) {
+                    keys[i] = copy[i] == NONE ? -1 : rankOfCode[copy[i]];
+                }
+                return keys;
+            };
+        }
+
+        @Override
+        void resize(int capacity) {
+            codes = Arrays.copyOf(codes, capacity);
+        }
+
+        @Override
+        void move(int from, int to, int length) {
+            System.arraycopy(codes, from, codes, to, length);
+        }
+
+        @Override
+        void copyTo(Column target, int capacity) {
+            Dictionary copy = (Dictionary) target;
+            copy.codes = Arrays.copyOf(codes, capacity);
+            copy.values.clear();
+            copy.values.addAll(values);
+            copy.codesByValue.clear();
+            copy.codesByValue.putAll(codesByValue);
+        }
+    }
+}
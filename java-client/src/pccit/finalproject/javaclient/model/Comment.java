@@ -1,5 +1,10 @@
 package pccit.finalproject.javaclient.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import pccit.finalproject.javaclient.codec.EpochMillisDeserializer;
+
 import java.time.LocalDateTime;
 
 public class Comment {
@@ -9,7 +14,9 @@ public class Comment {
     private String articleTitle;
     private int authorId;
     private String authorUsername;
-    private LocalDateTime createdAt;
+    @JsonProperty("createdAt")
+    @JsonDeserialize(using = EpochMillisDeserializer.class)
+    private long createdAtMillis = ColumnStore.Timestamps.NONE;
     private String status;  // active, deleted
     private int likeCount;
 
@@ -32,8 +39,13 @@ public class Comment {
     public String getAuthorUsername() { return authorUsername; }
     public void setAuthorUsername(String authorUsername) { this.authorUsername = authorUsername; }
 
-    public LocalDateTime getCreatedAt() { return createdAt; }
-    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    @JsonIgnore
+    public LocalDateTime getCreatedAt() { return ColumnStore.Timestamps.toDateTime(createdAtMillis); }
+    @JsonIgnore
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAtMillis = ColumnStore.Timestamps.toEpochMillis(createdAt); }
+
+    public long getCreatedAtMillis() { return createdAtMillis; }
+    public void setCreatedAtMillis(long createdAtMillis) { this.createdAtMillis = createdAtMillis; }
 
     public String getStatus() { return status; }
     public void setStatus(String status) { this.status = status; }
@@ -1,24 +1,35 @@
 package pccit.finalproject.javaclient.model;
 
-import javax.swing.table.AbstractTableModel;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
 
-public class CommentTableModel extends AbstractTableModel {
-    private final List<Comment> comments;
+public class CommentTableModel extends ListTableModel<Comment> {
     private final String[] columnNames = {
         "ID", "Content", "Article", "Author", "Created At", 
         "Likes", "Status"
     };
+    private final Class<?>[] columnClasses = {
+        Integer.class, String.class, String.class, String.class, String.class,
+        Integer.class, String.class
+    };
     private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
-    public CommentTableModel(List<Comment> comments) {
-        this.comments = comments;
-    }
+    private final ColumnStore.Texts contents = store.texts();
+    private final ColumnStore.Ints articleIds = store.ints();
+    private final ColumnStore.Dictionary articleTitles = store.dictionary();
+    private final ColumnStore.Ints authorIds = store.ints();
+    private final ColumnStore.Dictionary authors = store.dictionary();
+    private final ColumnStore.Timestamps createdAt = store.timestamps();
+    private final ColumnStore.Dictionary statuses = store.dictionary();
+    private final ColumnStore.Ints likeCounts = store.ints();
 
-    @Override
-    public int getRowCount() {
-        return comments.size();
+    //formatted creation times, filled in when a row is first painted and cleared when it changes
+    private final ColumnStore.Texts createdAtText = store.texts();
+
+    public CommentTableModel(List<Comment> comments) {
+        append(comments);
     }
 
     @Override
@@ -32,29 +43,134 @@ public class CommentTableModel extends AbstractTableModel {
     }
 
     @Override
-    public Object getValueAt(int rowIndex, int columnIndex) {
-        Comment comment = comments.get(rowIndex);
+    public Class<?> getColumnClass(int column) {
+        return columnClasses[column];
+    }
+
+    @Override
+    protected int idOf(Comment comment) {
+        return comment.getId();
+    }
+
+    @Override
+    protected void write(int position, Comment comment) {
+        contents.set(position, comment.getContent());
+        articleIds.set(position, comment.getArticleId());
+        articleTitles.set(position, comment.getArticleTitle());
+        authorIds.set(position, comment.getAuthorId());
+        authors.set(position, comment.getAuthorUsername());
+        createdAt.set(position, comment.getCreatedAtMillis());
+        statuses.set(position, comment.getStatus());
+        likeCounts.set(position, comment.getLikeCount());
+        createdAtText.set(position, null);
+    }
+
+    @Override
+    protected Comment read(int position) {
+        Comment comment = new Comment();
+        comment.setId(idAt(position));
+        comment.setContent(contents.get(position));
+        comment.setArticleId(articleIds.get(position));
+        comment.setArticleTitle(articleTitles.get(position));
+        comment.setAuthorId(authorIds.get(position));
+        comment.setAuthorUsername(authors.get(position));
+        comment.setCreatedAtMillis(createdAt.get(position));
+        comment.setStatus(statuses.get(position));
+        comment.setLikeCount(likeCounts.get(position));
+        return comment;
+    }
+
+    @Override
+    protected ListTableModel<Comment> newEmpty() {
+        return new CommentTableModel(new ArrayList<>());
+    }
+
+    @Override
+    protected Object valueAt(int position, int columnIndex) {
         switch (columnIndex) {
             case 0:
-                return comment.getId();
+                return idAt(position);
             case 1:
-                return comment.getContent();
+                return contents.get(position);
             case 2:
-                return comment.getArticleTitle();
+                return articleTitles.get(position);
             case 3:
-                return comment.getAuthorUsername();
+                return authors.get(position);
             case 4:
-                return comment.getCreatedAt().format(formatter);
+                String created = createdAtText.get(position);
+                if (created == null) {
+                    LocalDateTime dateTime = createdAt.getDateTime(position);
+                    created = dateTime != null ? dateTime.format(formatter) : "";
+                    createdAtText.set(position, created);
+                }
+                return created;
             case 5:
-                return comment.getLikeCount();
+                return likeCounts.get(position);
             case 6:
-                return comment.getStatus();
+                return statuses.get(position);
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    protected ColumnStore.Column sortColumn(int column) {
+        switch (column) {
+            case 0:
+                return ids;
+            case 1:
+                return contents;
+            case 2:
+                return articleTitles;
+            case 3:
+                return authors;
+            case 4:
+                return createdAt;
+            case 5:
+                return likeCounts;
+            case 6:
+                return statuses;
             default:
                 return null;
         }
     }
 
     public Comment getCommentAt(int row) {
-        return comments.get(row);
+        return rowAt(row);
+    }
+
+    /**
+     * Append the comments of a newly loaded page.
+     * @param page the comments to append
+     */
+    public void appendComments(List<Comment> page) {
+        append(page);
+    }
+
+    /**
+     * Remove the comment with the given id.
+     * @param id the comment id
+     * @return the removed comment, or null if it is not in the table
+     */
+    public Comment removeById(int id) {
+        return remove(id);
+    }
+
+    /**
+     * Remove every comment that belongs to the given article.
+     * @param articleId the article id
+     * @return the removed comments
+     */
+    public List<Comment> removeByArticleId(int articleId) {
+        return removeIf(position -> articleIds.get(position) == articleId);
+    }
+
+    /**
+     * Replace the comment that has the same id as the given one.
+     * @param comment the updated comment
+     * @return true if the comment was found and updated
+     */
+    public boolean updateComment(Comment comment) {
+        return update(comment);
     }
-} 
\ No newline at end of file
+}
\ No newline at end of file
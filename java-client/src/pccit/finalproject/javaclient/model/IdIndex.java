@@ -0,0 +1,104 @@
+package pccit.finalproject.javaclient.model;
+
+import java.util.Arrays;
+
+/**
+ * Maps the ids of rows to their positions, e.g. in a {@link ColumnStore}.
+ * An open addressing hash table over two int arrays, so lookups neither box nor allocate.
+ */
+public final class IdIndex {
+
+    //marks a free slot in values, positions are never negative
+    private static final int FREE = -1;
+
+    private int[] keys = new int[64];
+    private int[] values = new int[64];
+    private int size;
+
+    public IdIndex() {
+        Arrays.fill(values, FREE);
+    }
+
+    /**
+     * Get the position of an id.
+     * @param id the id
+     * @return the position, or -1 if the id is not in the index
+     */
+    public int get(int id) {
+        int mask = keys.length - 1;
+        for (int slot = slot(id, mask); values[slot] != FREE; slot = (slot + 1) & mask) {
+            if (keys[slot] == id) {
+                return values[slot];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Set the position of an id.
+     * @param id the id
+     * @param position the position
+     */
+    public void put(int id, int position) {
+        if ((size + 1) * 2 > keys.length) {
+            grow();
+        }
+        int mask = keys.length - 1;
+        int slot = slot(id, mask);
+        while (values[slot] != FREE && keys[slot] != id) {
+            slot = (slot + 1) & mask;
+        }
+        if (values[slot] == FREE) {
+            size++;
+        }
+        keys[slot] = id;
+        values[slot] = position;
+    }
+
+    /**
+     * Remove an id.
+     * @param id the id
+     */
+    public void remove(int id) {
+        int mask = keys.length - 1;
+        int slot = slot(id, mask);
+        while (values[slot] != FREE && keys[slot] != id) {
+            slot = (slot + 1) & mask;
+        }
+        if (values[slot] == FREE) {
+            return;
+        }
+        size--;
+        // move later entries of the same run back, so that no lookup stops early at the freed slot
+        int free = slot;
+        for (int next = (free + 1) & mask; values[next] != FREE; next = (next + 1) & mask) {
+            int home = slot(keys[next], mask);
+            if (((next - home) & mask) >= ((next - free) & mask)) {
+                keys[free] = keys[next];
+                values[free] = values[next];
+                free = next;
+            }
+        }
+        values[free] = FREE;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        Arrays.fill(values, FREE);
+        size = 0;
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            if (oldValues[slot] != FREE) {
+                put(oldKeys[slot], oldValues[slot]);
+            }
+        }
+    }
+
+    //spread sequential ids over the table
+    private static int slot(int id, int mask) {
+        int h = id * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
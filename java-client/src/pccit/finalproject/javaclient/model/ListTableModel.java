@@ -0,0 +1,658 @@
+package pccit.finalproject.javaclient.model;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntPredicate;
+import java.util.function.Supplier;
+
+/**
+ * A table model that shows rows with an id, optionally sorted and filtered by id.
+ * The rows are kept in a {@link ColumnStore}; row objects are only built when a caller asks for one.
+ * Row numbers passed to and returned from this model are always the numbers of the shown rows.
+ * @param <T> the type of the rows
+ */
+public abstract class ListTableModel<T> extends AbstractTableModel {
+
+    //all rows, in load order
+    protected final ColumnStore store = new ColumnStore();
+    protected final ColumnStore.Ints ids = store.ints();
+
+    //the position of every id, so that lookups by id do not scan the rows
+    private final IdIndex positions = new IdIndex();
+
+    //positions in the store in sort order; null when the rows are shown in load order
+    private int[] order;
+    private List<RowSorter.SortKey> sortKeys = List.of();
+
+    //positions of the shown rows in display order, and the shown row of every position or -1 if it is
+    //filtered out; both null when every row is shown in load order
+    private int[] visible;
+    private int[] rowOf;
+
+    //the filter on the row ids, or null
+    private IntPredicate filter;
+
+    //whether rows from outside the paged list were merged in, so appended pages may repeat them
+    private boolean merged;
+
+    //counts removals and insertions before the last row, a sort computed before one no longer matches the positions
+    private int removals;
+
+    /**
+     * Get the id of a row.
+     * @param row the row
+     * @return the id
+     */
+    protected abstract int idOf(T row);
+
+    /**
+     * Copy the fields of a row into the columns of the store.
+     * @param position the position of the row in the store
+     * @param row the row
+     */
+    protected abstract void write(int position, T row);
+
+    /**
+     * Build a row object from the columns of the store.
+     * @param position the position of the row in the store
+     * @return the row
+     */
+    protected abstract T read(int position);
+
+    /**
+     * Create an empty model of the same type, with the same columns in its store.
+     * @return the model
+     */
+    protected abstract ListTableModel<T> newEmpty();
+
+    /**
+     * Get the value shown in a column of a row.
+     * @param position the position of the row in the store
+     * @param column the column index
+     * @return the value
+     */
+    protected abstract Object valueAt(int position, int column);
+
+    /**
+     * Get the store column a table column is sorted by.
+     * @param column the column index
+     * @return the store column, or null if the column cannot be sorted
+     */
+    protected abstract ColumnStore.Column sortColumn(int column);
+
+    @Override
+    public int getRowCount() {
+        return visible == null ? store.size() : visible.length;
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        return valueAt(positionAt(rowIndex), columnIndex);
+    }
+
+    /**
+     * Show only the rows whose id passes a filter.
+     * @param idFilter the filter, or null to show every row
+     */
+    public void setFilter(IntPredicate idFilter) {
+        this.filter = idFilter;
+        rebuildVisible();
+        fireTableDataChanged();
+    }
+
+    /**
+     * Whether a filter is set.
+     * @return true if only some rows may be shown
+     */
+    public boolean isFiltered() {
+        return filter != null;
+    }
+
+    /**
+     * Get the columns the rows are sorted by.
+     * @return the sort keys, the first is the primary one; empty in load order
+     */
+    public List<RowSorter.SortKey> getSortKeys() {
+        return sortKeys;
+    }
+
+    /**
+     * Whether a table column can be sorted.
+     * @param column the column index
+     * @return true if the column has sort keys
+     */
+    public boolean isSortable(int column) {
+        return sortColumn(column) != null;
+    }
+
+    /**
+     * Take a snapshot of the rows for sorting them by some columns.
+     * Call this on the EDT, then {@link Sort#compute()} on any thread and {@link #applySort} on the EDT again.
+     * @param keys the columns to sort by, the first is the primary one; empty for load order
+     * @return the sort
+     */
+    public Sort prepareSort(List<? extends RowSorter.SortKey> keys) {
+        List<Supplier<int[]>> columns = new ArrayList<>();
+        List<RowSorter.SortKey> sortable = new ArrayList<>();
+        for (RowSorter.SortKey key : keys) {
+            ColumnStore.Column column = sortColumn(key.getColumn());
+            if (column != null && key.getSortOrder() != SortOrder.UNSORTED) {
+                columns.add(column.sortKeys(store.size()));
+                sortable.add(key);
+            }
+        }
+        return new Sort(this, sortable, columns, store.size(), removals);
+    }
+
+    /**
+     * Show the rows in a computed sort order.
+     * Rows appended after the snapshot are shown after the sorted ones.
+     * @param sort the computed sort
+     * @return false if rows were removed since the snapshot, the sort must then be prepared again
+     */
+    public boolean applySort(Sort sort) {
+        if (sort.model != this || sort.removals != removals || sort.order == null) {
+            return false;
+        }
+        sortKeys = List.copyOf(sort.keys);
+        if (sortKeys.isEmpty()) {
+            order = null;
+        } else {
+            order = Arrays.copyOf(sort.order, store.size());
+            for (int position = sort.size; position < store.size(); position++) {
+                order[position] = position;
+            }
+        }
+        rebuildVisible();
+        fireTableDataChanged();
+        return true;
+    }
+
+    /**
+     * Merge rows that were loaded outside the paged list, e.g. search results.
+     * Rows that are already in the table are skipped.
+     * @param found the rows to merge
+     * @return the rows that were added
+     */
+    public List<T> merge(List<T> found) {
+        List<T> added = withoutExisting(found);
+        merged = true;
+        append(added);
+        return added;
+    }
+
+    /**
+     * Insert rows before every other row, e.g. a page of the list that comes before the loaded ones.
+     * Rows that are already in the table are skipped. In a sorted table the inserted rows are shown first.
+     * @param found the rows to insert, in list order
+     * @return the rows that were inserted
+     */
+    public List<T> prepend(List<T> found) {
+        List<T> added = withoutExisting(found);
+        int count = added.size();
+        if (count == 0) {
+            return added;
+        }
+        store.insertRows(0, count);
+        for (int position = 0; position < count; position++) {
+            T row = added.get(position);
+            ids.set(position, idOf(row));
+            write(position, row);
+        }
+        removals++;
+        reindexFrom(0);
+        if (order != null) {
+            int[] shifted = new int[store.size()];
+            for (int position = 0; position < count; position++) {
+                shifted[position] = position;
+            }
+            for (int i = 0; i < order.length; i++) {
+                shifted[count + i] = order[i] + count;
+            }
+            order = shifted;
+        }
+        if (visible == null) {
+            fireTableRowsInserted(0, count - 1);
+        } else {
+            rebuildVisible();
+            fireTableDataChanged();
+        }
+        return added;
+    }
+
+    /**
+     * Remove the rows with some ids, e.g. the rows of a page that is no longer kept.
+     * Ids that are not in the table are skipped. No row objects are built.
+     * @param removedIds the ids
+     */
+    public void removeIds(int[] removedIds) {
+        int[] removedPositions = new int[removedIds.length];
+        int count = 0;
+        for (int id : removedIds) {
+            int position = positions.get(id);
+            if (position >= 0) {
+                removedPositions[count++] = position;
+            }
+        }
+        if (count == 0) {
+            return;
+        }
+        Arrays.sort(removedPositions, 0, count);
+        int unique = 1;
+        for (int i = 1; i < count; i++) {
+            if (removedPositions[i] != removedPositions[unique - 1]) {
+                removedPositions[unique++] = removedPositions[i];
+            }
+        }
+        count = unique;
+        boolean contiguous = visible == null && removedPositions[count - 1] - removedPositions[0] == count - 1;
+        int first = removedPositions[0];
+        for (int i = 0; i < count; i++) {
+            positions.remove(ids.get(removedPositions[i]));
+        }
+        store.removeAll(removedPositions, count);
+        removed(removedPositions, count);
+        if (contiguous) {
+            // a page in load order, the selection of the other rows is kept
+            fireTableRowsDeleted(first, first + count - 1);
+        } else {
+            fireTableDataChanged();
+        }
+    }
+
+    /**
+     * Apply rows that changed on the server. Rows that are in the table are replaced in place, new rows are
+     * merged in, and updated rows that are not loaded yet are skipped, they come with their page.
+     * @param changed the changed rows
+     * @param inserted tells by id whether a row is new on the server
+     * @return the rows that were added
+     */
+    public List<T> applyChanged(List<T> changed, IntPredicate inserted) {
+        List<T> added = new ArrayList<>();
+        for (T row : changed) {
+            if (!update(row) && inserted.test(idOf(row))) {
+                added.add(row);
+            }
+        }
+        return added.isEmpty() ? added : merge(added);
+    }
+
+    /**
+     * Whether the row with an id is in the table, whether it is shown or not.
+     * @param id the id
+     * @return true if the row is in the table
+     */
+    public boolean contains(int id) {
+        return positions.get(id) >= 0;
+    }
+
+    /**
+     * Take a snapshot of every row in the table, whether it is shown or not.
+     * Call this on the EDT; only the column arrays are copied. The row objects are built in load order when the
+     * returned supplier is called, which may happen on any thread while this model keeps changing.
+     * @return builds the rows of the snapshot
+     */
+    public Supplier<List<T>> snapshotRows() {
+        ListTableModel<T> copy = newEmpty();
+        store.copyTo(copy.store);
+        return () -> {
+            List<T> rows = new ArrayList<>(copy.store.size());
+            for (int position = 0; position < copy.store.size(); position++) {
+                rows.add(copy.read(position));
+            }
+            return rows;
+        };
+    }
+
+    /**
+     * Get the position in the store of the row shown at a row number.
+     * Positions stay the same until a row is removed.
+     * @param row the row number
+     * @return the position
+     */
+    public int positionAt(int row) {
+        return visible == null ? row : visible[row];
+    }
+
+    /**
+     * Get the id of the row shown at a row number.
+     * @param row the row number
+     * @return the id
+     */
+    public int getIdAt(int row) {
+        return ids.get(positionAt(row));
+    }
+
+    /**
+     * Get the row number the row with an id is shown at.
+     * @param id the id
+     * @return the row number, or -1 if the row is not in the table or filtered out
+     */
+    public int rowOfId(int id) {
+        int position = positions.get(id);
+        return position < 0 ? -1 : shownAt(position);
+    }
+
+    /**
+     * Get the row number a position in the store is shown at.
+     * @param position the position
+     * @return the row number, or -1 if the row is filtered out
+     */
+    public int shownAt(int position) {
+        return rowOf == null ? position : rowOf[position];
+    }
+
+    /**
+     * Get the row shown at a row number.
+     * @param row the row number
+     * @return the row
+     */
+    protected T rowAt(int row) {
+        return read(positionAt(row));
+    }
+
+    /**
+     * Get the id of the row at a position in the store.
+     * @param position the position
+     * @return the id
+     */
+    protected int idAt(int position) {
+        return ids.get(position);
+    }
+
+    /**
+     * Append newly loaded rows, showing those that pass the filter after the rows already shown.
+     * @param page the rows to append
+     */
+    protected void append(List<T> page) {
+        if (merged) {
+            page = withoutExisting(page);
+        }
+        if (page.isEmpty()) {
+            return;
+        }
+        int first = store.size();
+        for (T row : page) {
+            int position = store.addRow();
+            int id = idOf(row);
+            ids.set(position, id);
+            positions.put(id, position);
+            write(position, row);
+        }
+        if (order != null) {
+            order = Arrays.copyOf(order, store.size());
+            for (int position = first; position < store.size(); position++) {
+                order[position] = position;
+            }
+        }
+        if (visible == null) {
+            fireTableRowsInserted(first, store.size() - 1);
+            return;
+        }
+
+        int firstShown = visible.length;
+        int[] grown = Arrays.copyOf(visible, visible.length + page.size());
+        rowOf = Arrays.copyOf(rowOf, store.size());
+        int count = visible.length;
+        for (int position = first; position < store.size(); position++) {
+            if (filter == null || filter.test(ids.get(position))) {
+                rowOf[position] = count;
+                grown[count++] = position;
+            } else {
+                rowOf[position] = -1;
+            }
+        }
+        visible = Arrays.copyOf(grown, count);
+        if (count > firstShown) {
+            fireTableRowsInserted(firstShown, count - 1);
+        }
+    }
+
+    /**
+     * Remove the row with the given id.
+     * @param id the id
+     * @return the removed row, or null if it is not in the table
+     */
+    protected T remove(int id) {
+        int index = indexOf(id);
+        if (index < 0) {
+            return null;
+        }
+        int shownAt = shownAt(index);
+        T removed = read(index);
+        store.remove(index);
+        positions.remove(id);
+        removed(index, shownAt);
+        if (shownAt >= 0) {
+            fireTableRowsDeleted(shownAt, shownAt);
+        }
+        return removed;
+    }
+
+    /**
+     * Remove every row that matches a condition.
+     * @param condition the condition, tested with the position of each row in the store
+     * @return the removed rows
+     */
+    protected List<T> removeIf(IntPredicate condition) {
+        List<T> removed = new ArrayList<>();
+        int[] removedPositions = new int[16];
+        int count = 0;
+        for (int position = 0; position < store.size(); position++) {
+            if (condition.test(position)) {
+                if (count == removedPositions.length) {
+                    removedPositions = Arrays.copyOf(removedPositions, count * 2);
+                }
+                removedPositions[count++] = position;
+                removed.add(read(position));
+            }
+        }
+        if (count == 0) {
+            return removed;
+        }
+
+        int shownAt = shownAt(removedPositions[0]);
+        for (int i = 0; i < count; i++) {
+            positions.remove(ids.get(removedPositions[i]));
+        }
+        store.removeAll(removedPositions, count);
+        removed(removedPositions, count);
+        if (count > 1) {
+            // the removed rows are usually spread out, one event for each would be reported against a stale row count
+            fireTableDataChanged();
+        } else if (shownAt >= 0) {
+            fireTableRowsDeleted(shownAt, shownAt);
+        }
+        return removed;
+    }
+
+    /**
+     * Replace the row that has the same id as the given one.
+     * The row keeps its place in the sort order until the rows are sorted again.
+     * @param row the updated row
+     * @return true if the row was found and updated
+     */
+    protected boolean update(T row) {
+        int index = indexOf(idOf(row));
+        if (index < 0) {
+            return false;
+        }
+        write(index, row);
+        int shownAt = shownAt(index);
+        if (shownAt >= 0) {
+            fireTableRowsUpdated(shownAt, shownAt);
+        }
+        return true;
+    }
+
+    /**
+     * Get the row with the given id, whether it is shown or not.
+     * @param id the id
+     * @return the row, or null if it is not in the table
+     */
+    protected T find(int id) {
+        int index = indexOf(id);
+        return index < 0 ? null : read(index);
+    }
+
+    private List<T> withoutExisting(List<T> candidates) {
+        Set<Integer> added = new HashSet<>();
+        List<T> missing = new ArrayList<>();
+        for (T row : candidates) {
+            int id = idOf(row);
+            if (positions.get(id) < 0 && added.add(id)) {
+                missing.add(row);
+            }
+        }
+        return missing;
+    }
+
+    private int indexOf(int id) {
+        return positions.get(id);
+    }
+
+    //drop one removed position from the sort order and the shown rows and shift the entries after it,
+    //without testing the filter on the other rows again
+    private void removed(int position, int shownAt) {
+        removals++;
+        reindexFrom(position);
+        if (order != null) {
+            int[] kept = new int[order.length - 1];
+            int size = 0;
+            for (int sorted : order) {
+                if (sorted != position) {
+                    kept[size++] = sorted > position ? sorted - 1 : sorted;
+                }
+            }
+            order = kept;
+        }
+        if (visible == null) {
+            return;
+        }
+        if (shownAt >= 0) {
+            int[] shown = new int[visible.length - 1];
+            System.arraycopy(visible, 0, shown, 0, shownAt);
+            System.arraycopy(visible, shownAt + 1, shown, shownAt, shown.length - shownAt);
+            visible = shown;
+        }
+        for (int row = 0; row < visible.length; row++) {
+            if (visible[row] > position) {
+                visible[row]--;
+            }
+        }
+        int[] rows = new int[rowOf.length - 1];
+        System.arraycopy(rowOf, 0, rows, 0, position);
+        System.arraycopy(rowOf, position + 1, rows, position, rows.length - position);
+        if (shownAt >= 0) {
+            for (int i = 0; i < rows.length; i++) {
+                if (rows[i] > shownAt) {
+                    rows[i]--;
+                }
+            }
+        }
+        rowOf = rows;
+    }
+
+    //drop removed positions from the index and the sort order and shift the positions after them
+    private void removed(int[] removedPositions, int count) {
+        removals++;
+        reindexFrom(removedPositions[0]);
+        if (order != null) {
+            int[] kept = new int[order.length - count];
+            int size = 0;
+            for (int position : order) {
+                int found = Arrays.binarySearch(removedPositions, 0, count, position);
+                if (found < 0) {
+                    // -found - 1 is the number of removed positions before this one
+                    kept[size++] = position + found + 1;
+                }
+            }
+            order = kept;
+        }
+        rebuildVisible();
+    }
+
+    //the rows from a position on have moved up in the store, only their ids need their new positions
+    private void reindexFrom(int first) {
+        for (int position = first; position < store.size(); position++) {
+            positions.put(ids.get(position), position);
+        }
+    }
+
+    private void rebuildVisible() {
+        if (filter == null && order == null) {
+            visible = null;
+            rowOf = null;
+            return;
+        }
+        int[] shown = new int[store.size()];
+        rowOf = new int[store.size()];
+        int count = 0;
+        for (int i = 0; i < store.size(); i++) {
+            int position = order == null ? i : order[i];
+            if (filter == null || filter.test(ids.get(position))) {
+                rowOf[position] = count;
+                shown[count++] = position;
+            } else {
+                rowOf[position] = -1;
+            }
+        }
+        visible = count == shown.length ? shown : Arrays.copyOf(shown, count);
+    }
+
+    /**
+     * A sort of the rows of a model by some of its columns.
+     * It works on a snapshot of the columns, so it can be computed on any thread.
+     */
+    public static final class Sort {
+        private final ListTableModel<?> model;
+        private final List<RowSorter.SortKey> keys;
+        private final List<Supplier<int[]>> columns;
+        private final int size;
+        private final int removals;
+        private int[] order;
+
+        private Sort(ListTableModel<?> model, List<RowSorter.SortKey> keys, List<Supplier<int[]>> columns,
+                     int size, int removals) {
+            this.model = model;
+            this.keys = keys;
+            this.columns = columns;
+            this.size = size;
+            this.removals = removals;
+        }
+
+        /**
+         * Compute the sort order. This is CPU heavy for large tables and should run off the EDT.
+         */
+        public void compute() {
+            int[] sorted = new int[size];
+            for (int i = 0; i < size; i++) {
+                sorted[i] = i;
+            }
+            // sort by the least significant column first; every pass is stable, so the later passes decide ties
+            long[] packed = new long[size];
+            for (int k = keys.size() - 1; k >= 0; k--) {
+                int[] values = columns.get(k).get();
+                boolean descending = keys.get(k).getSortOrder() == SortOrder.DESCENDING;
+                for (int i = 0; i < size; i++) {
+                    int value = values[sorted[i]];
+                    // the key in the high half and the current place in the low half, which keeps ties stable
+                    packed[i] = (long) (descending ? ~value : value) << 32 | i;
+                }
+                // sorts in parallel once the table is large enough to be worth it
+                Arrays.parallelSort(packed);
+                int[] next = new int[size];
+                for (int i = 0; i < size; i++) {
+                    next[i] = sorted[(int) packed[i]];
+                }
+                sorted = next;
+            }
+            order = sorted;
+        }
+    }
+}
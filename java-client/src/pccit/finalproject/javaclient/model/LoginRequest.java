@@ -0,0 +1,17 @@
+package pccit.finalproject.javaclient.model;
+
+/**
+ * The body sent to /auth/login.
+ */
+public class LoginRequest {
+    private final String username;
+    private final String password;
+
+    public LoginRequest(String username, String password) {
+        this.username = username;
+        this.password = password;
+    }
+
+    public String getUsername() { return username; }
+    public String getPassword() { return password; }
+}
@@ -0,0 +1,29 @@
+package pccit.finalproject.javaclient.model;
+
+/**
+ * The body returned by /auth/login.
+ */
+public class LoginResponse {
+    private String token;
+    private Account user;
+
+    public String getToken() { return token; }
+    public void setToken(String token) { this.token = token; }
+
+    public Account getUser() { return user; }
+    public void setUser(Account user) { this.user = user; }
+
+    /**
+     * The logged-in account as described in the login response.
+     */
+    public static class Account {
+        private String username;
+        private String role;
+
+        public String getUsername() { return username; }
+        public void setUsername(String username) { this.username = username; }
+
+        public String getRole() { return role; }
+        public void setRole(String role) { this.role = role; }
+    }
+}
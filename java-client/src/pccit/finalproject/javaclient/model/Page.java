@@ -0,0 +1,45 @@
+package pccit.finalproject.javaclient.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One page of an admin list, as returned by the paginated /admin routes.
+ * @param <T> the type of the rows
+ */
+public class Page<T> {
+    private final List<T> items;
+    private final String nextCursor;
+
+    public Page(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Create an empty last page, used when a page could not be loaded.
+     * @param <T> the type of the rows
+     * @return the empty page
+     */
+    public static <T> Page<T> empty() {
+        return new Page<>(new ArrayList<>(), null);
+    }
+
+    public List<T> getItems() { return items; }
+
+    /**
+     * Get the cursor for the following page.
+     * @return the cursor, or null if this is the last page
+     */
+    public String getNextCursor() { return nextCursor; }
+
+    public boolean hasNext() { return nextCursor != null; }
+
+    /**
+     * Create a copy with its own item list, so that the copy can be changed independently.
+     * @return the copy
+     */
+    public Page<T> copy() {
+        return new Page<>(new ArrayList<>(items), nextCursor);
+    }
+}
@@ -0,0 +1,33 @@
+package pccit.finalproject.javaclient.model;
+
+import java.util.List;
+
+/**
+ * Which pages of an admin list a table holds. Only a window of consecutive pages is kept; the pages before it
+ * were dropped and are known only by the cursor they are requested with, the pages after it by the next cursor.
+ */
+public class PageWindow {
+    private final List<String> droppedCursors;
+    private final List<String> cursors;
+    private final List<int[]> ids;
+    private final String nextCursor;
+
+    /**
+     * Constructor
+     * @param droppedCursors the cursors of the dropped pages before the window, in list order; null for the first page
+     * @param cursors the cursor each kept page was requested with, in list order; null for the first page
+     * @param ids the ids of the rows each kept page added to the table
+     * @param nextCursor the cursor of the page after the window, or null if the window reaches the end of the list
+     */
+    public PageWindow(List<String> droppedCursors, List<String> cursors, List<int[]> ids, String nextCursor) {
+        this.droppedCursors = droppedCursors;
+        this.cursors = cursors;
+        this.ids = ids;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<String> getDroppedCursors() { return droppedCursors; }
+    public List<String> getCursors() { return cursors; }
+    public List<int[]> getIds() { return ids; }
+    public String getNextCursor() { return nextCursor; }
+}
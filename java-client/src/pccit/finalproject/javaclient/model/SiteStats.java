@@ -1,5 +1,8 @@
 package pccit.finalproject.javaclient.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonSetter;
+
 public class SiteStats {
     private int totalUsers;
     private int totalArticles;
@@ -22,4 +25,39 @@ public class SiteStats {
     
     public int getBannedUsers() { return bannedUsers; }
     public void setBannedUsers(int bannedUsers) { this.bannedUsers = bannedUsers; }
-} 
\ No newline at end of file
+
+    /**
+     * Create a copy that can be adjusted independently.
+     * @return the copy
+     */
+    public SiteStats copy() {
+        SiteStats copy = new SiteStats();
+        copy.totalUsers = totalUsers;
+        copy.totalArticles = totalArticles;
+        copy.totalComments = totalComments;
+        copy.activeUsers = activeUsers;
+        copy.bannedUsers = bannedUsers;
+        return copy;
+    }
+
+    // The /admin/stats payload groups the counters by section, e.g. {"users": {"total": 3, ...}}
+    @JsonSetter("users")
+    private void readUsers(Counts users) {
+        totalUsers = users.total;
+        activeUsers = users.active;
+        bannedUsers = users.banned;
+    }
+
+    @JsonSetter("articles")
+    private void readArticles(Counts articles) { totalArticles = articles.total; }
+
+    @JsonSetter("comments")
+    private void readComments(Counts comments) { totalComments = comments.total; }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    static class Counts {
+        public int total;
+        public int active;
+        public int banned;
+    }
+}
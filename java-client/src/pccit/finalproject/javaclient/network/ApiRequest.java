@@ -0,0 +1,90 @@
+package pccit.finalproject.javaclient.network;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A request to the backend API.
+ * The path is relative to {@code BACKEND_URL}, e.g. "/admin/users".
+ */
+public class ApiRequest {
+    private final String method;
+    private final String path;
+    private final String body;
+    private final Map<String, String> headers = new LinkedHashMap<>();
+    private boolean streaming;
+
+    private ApiRequest(String method, String path, String body) {
+        this.method = method;
+        this.path = path;
+        this.body = body;
+    }
+
+    /**
+     * Create a GET request.
+     * @param path the path relative to the backend url
+     * @return the request
+     */
+    public static ApiRequest get(String path) {
+        return new ApiRequest("GET", path, null);
+    }
+
+    /**
+     * Create a POST request.
+     * @param path the path relative to the backend url
+     * @param jsonBody the JSON body, or null to send an empty body
+     * @return the request
+     */
+    public static ApiRequest post(String path, String jsonBody) {
+        return new ApiRequest("POST", path, jsonBody);
+    }
+
+    /**
+     * Create a DELETE request.
+     * @param path the path relative to the backend url
+     * @return the request
+     */
+    public static ApiRequest delete(String path) {
+        return new ApiRequest("DELETE", path, null);
+    }
+
+    /**
+     * Add the bearer token used by the admin routes.
+     * @param token the token, ignored if null
+     * @return this request
+     */
+    public ApiRequest bearer(String token) {
+        if (token != null) {
+            headers.put("Authorization", "Bearer " + token);
+        }
+        return this;
+    }
+
+    /**
+     * Add a request header.
+     * @param name the header name
+     * @param value the header value
+     * @return this request
+     */
+    public ApiRequest header(String name, String value) {
+        headers.put(name, value);
+        return this;
+    }
+
+    /**
+     * Mark the response as a long-lived stream, e.g. server-sent events.
+     * The timeout still applies to the response headers, but not to the reads of the body,
+     * which may stay quiet for longer; the caller watches the stream itself.
+     * @return this request
+     */
+    public ApiRequest streaming() {
+        this.streaming = true;
+        return this;
+    }
+
+    public String getMethod() { return method; }
+    public String getPath() { return path; }
+    public String getBody() { return body; }
+    public Map<String, String> getHeaders() { return headers; }
+    public boolean isStreaming() { return streaming; }
+}
@@ -0,0 +1,68 @@
+package pccit.finalproject.javaclient.network;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A response from the backend API.
+ * The body is exposed as a stream so that it can be decoded without buffering it first.
+ * The response must be closed to release the underlying connection.
+ */
+public class ApiResponse implements Closeable {
+    private final int statusCode;
+    private final Map<String, List<String>> headers;
+    private final InputStream body;
+
+    /**
+     * Constructor
+     * @param statusCode the HTTP status code
+     * @param headers the response headers
+     * @param body the response body
+     */
+    public ApiResponse(int statusCode, Map<String, List<String>> headers, InputStream body) {
+        this.statusCode = statusCode;
+        this.headers = headers == null ? Collections.emptyMap() : headers;
+        this.body = body == null ? InputStream.nullInputStream() : body;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * Get the first value of a response header.
+     * @param name the header name, case-insensitive
+     * @return the value, or null if the header is missing
+     */
+    public String getHeader(String name) {
+        for (Map.Entry<String, List<String>> entry : headers.entrySet()) {
+            if (entry.getKey() != null && entry.getKey().equalsIgnoreCase(name) && !entry.getValue().isEmpty()) {
+                return entry.getValue().get(0);
+            }
+        }
+        return null;
+    }
+
+    public InputStream getBody() {
+        return body;
+    }
+
+    /**
+     * Read the whole body as a string. Only meant for small error messages.
+     * @return the body
+     * @throws IOException if the body cannot be read
+     */
+    public String getBodyAsString() throws IOException {
+        return new String(body.readAllBytes(), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        body.close();
+    }
+}
@@ -0,0 +1,132 @@
+package pccit.finalproject.javaclient.network;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static pccit.finalproject.javaclient.config.Config.*;
+
+/**
+ * A transport backed by a single shared {@link HttpClient}.
+ * The client keeps connections alive between requests, uses HTTP/2 when the server supports it
+ * and runs its asynchronous work on a bounded executor.
+ * Responses are requested with gzip or deflate and decompressed while they are read.
+ * The read timeout applies to the response headers and to every read of the body,
+ * except for the body of a {@linkplain ApiRequest#streaming() streaming} request.
+ */
+public class HttpClientTransport implements HttpTransport {
+
+    private static final HttpClientTransport SHARED = new HttpClientTransport(
+            BACKEND_URL, Duration.ofMillis(CONNECT_TIMEOUT_MILLIS), Duration.ofMillis(READ_TIMEOUT_MILLIS), HTTP_THREADS);
+
+    private final String baseUrl;
+    private final Duration readTimeout;
+    private final HttpClient client;
+
+    /**
+     * Constructor
+     * @param baseUrl the url every request path is appended to
+     * @param connectTimeout the timeout for opening a connection
+     * @param readTimeout the timeout for receiving the response headers, and for each read of the body
+     * @param threads the maximum number of threads used by the client
+     */
+    public HttpClientTransport(String baseUrl, Duration connectTimeout, Duration readTimeout, int threads) {
+        this.baseUrl = baseUrl;
+        this.readTimeout = readTimeout;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(newBoundedExecutor(threads))
+                .build();
+    }
+
+    /**
+     * Get the transport shared by the whole application.
+     * @return the shared transport
+     */
+    public static HttpClientTransport shared() {
+        return SHARED;
+    }
+
+    @Override
+    public ApiResponse send(ApiRequest request) throws IOException {
+        HttpRequest.BodyPublisher publisher = request.getBody() == null
+                ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofString(request.getBody());
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + request.getPath()))
+                .timeout(readTimeout)
+                .method(request.getMethod(), publisher);
+        if (request.getBody() != null) {
+            builder.header("Content-Type", "application/json");
+        }
+        boolean acceptEncodingSet = false;
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            builder.header(header.getKey(), header.getValue());
+            acceptEncodingSet |= header.getKey().equalsIgnoreCase("Accept-Encoding");
+        }
+        if (!acceptEncodingSet) {
+            builder.header("Accept-Encoding", "gzip, deflate");
+        }
+
+        try {
+            HttpResponse<InputStream> response = client.send(builder.build(), HttpResponse.BodyHandlers.ofInputStream());
+            // the request timeout ends with the headers, the body gets its own per-read timeout
+            InputStream raw = request.isStreaming()
+                    ? response.body()
+                    : new TimeoutInputStream(response.body(), readTimeout.toMillis());
+            InputStream body = decode(response.statusCode(), response.headers().firstValue("Content-Encoding"), raw);
+            return new ApiResponse(response.statusCode(), response.headers().map(), body);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Request interrupted: " + request.getPath());
+        }
+    }
+
+    //wrap the body in a decompressing stream so the json decoder still reads it incrementally
+    private static InputStream decode(int statusCode, Optional<String> contentEncoding, InputStream body) throws IOException {
+        if (statusCode == 204 || statusCode == 304 || contentEncoding.isEmpty()) {
+            return body;
+        }
+        String encoding = contentEncoding.get().trim();
+        try {
+            if (encoding.equalsIgnoreCase("gzip")) {
+                return new GZIPInputStream(body);
+            }
+            if (encoding.equalsIgnoreCase("deflate")) {
+                return new InflaterInputStream(body);
+            }
+        } catch (IOException e) {
+            body.close();
+            throw e;
+        }
+        return body;
+    }
+
+    private static ExecutorService newBoundedExecutor(int threads) {
+        AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread thread = new Thread(r, "http-client-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
@@ -0,0 +1,18 @@
+package pccit.finalproject.javaclient.network;
+
+import java.io.IOException;
+
+/**
+ * The transport used by the model to talk to the backend.
+ * All HTTP calls of the client go through this interface, so it can be replaced in one place.
+ */
+public interface HttpTransport {
+
+    /**
+     * Send a request and wait for the response headers.
+     * @param request the request
+     * @return the response, which must be closed by the caller
+     * @throws IOException if the request fails or times out
+     */
+    ApiResponse send(ApiRequest request) throws IOException;
+}
@@ -0,0 +1,71 @@
+package pccit.finalproject.javaclient.network;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers the ETag and the decoded result of the last successful GET per path.
+ * Requests for a cached path carry If-None-Match, and a 304 Not Modified answer
+ * is served from the cached result without downloading or parsing the body again.
+ */
+public class ResponseCache {
+
+    private static class Entry {
+        final String etag;
+        final Object value;
+
+        Entry(String etag, Object value) {
+            this.etag = etag;
+            this.value = value;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+    /**
+     * Add If-None-Match to a GET request if a result for its path is cached.
+     * @param request the request
+     * @return the same request
+     */
+    public ApiRequest conditional(ApiRequest request) {
+        Entry entry = entries.get(request.getPath());
+        if (entry != null) {
+            request.header("If-None-Match", entry.etag);
+        }
+        return request;
+    }
+
+    /**
+     * Get the cached result for a path, used when the server answers 304.
+     * @param path the request path
+     * @param <T> the type of the result
+     * @return the cached result, or null if there is none
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String path) {
+        Entry entry = entries.get(path);
+        return entry == null ? null : (T) entry.value;
+    }
+
+    /**
+     * Store the decoded result of a 200 response. Responses without an ETag are not cached.
+     * The value must not be modified afterwards, so callers store a private copy.
+     * @param path the request path
+     * @param response the response carrying the ETag
+     * @param value the decoded result
+     */
+    public void put(String path, ApiResponse response, Object value) {
+        String etag = response.getHeader("ETag");
+        if (etag == null) {
+            entries.remove(path);
+        } else {
+            entries.put(path, new Entry(etag, value));
+        }
+    }
+
+    /**
+     * Forget every cached result, e.g. when another user logs in.
+     */
+    public void clear() {
+        entries.clear();
+    }
+}
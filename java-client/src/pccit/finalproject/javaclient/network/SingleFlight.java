@@ -0,0 +1,89 @@
+package pccit.finalproject.javaclient.network;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Collapses concurrent calls for the same key into a single call.
+ * The first caller runs the loader; callers arriving while it is still running
+ * wait for it and receive a copy of its result instead of starting their own request.
+ * A caller that was interrupted while loading shares nothing, the callers waiting for it load again.
+ * @param <K> the key type, e.g. the request path
+ * @param <V> the result type
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final UnaryOperator<V> copier;
+
+    /**
+     * Constructor
+     * @param copier copies a result for each waiting caller, so no two callers share a mutable result
+     */
+    public SingleFlight(UnaryOperator<V> copier) {
+        this.copier = copier;
+    }
+
+    /**
+     * Run the loader for a key, or join the call that is already running for it.
+     * @param key the key identifying identical calls
+     * @param loader the loader, only run when no call for the key is in flight
+     * @return the result of the shared call
+     * @throws CancellationException if the calling thread is interrupted while waiting for the shared call
+     */
+    public V execute(K key, Supplier<V> loader) {
+        while (true) {
+            CompletableFuture<V> call = new CompletableFuture<>();
+            CompletableFuture<V> running = inFlight.putIfAbsent(key, call);
+            if (running == null) {
+                return load(key, call, loader);
+            }
+            V result = join(running);
+            if (!running.isCancelled()) {
+                return result == null ? null : copier.apply(result);
+            }
+            // the leader was interrupted, its result may be incomplete; load again
+        }
+    }
+
+    private V load(K key, CompletableFuture<V> call, Supplier<V> loader) {
+        try {
+            V result = loader.get();
+            if (Thread.currentThread().isInterrupted()) {
+                call.cancel(false);
+            } else {
+                call.complete(result);
+            }
+            return result;
+        } catch (RuntimeException | Error e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    //wait for the leader; null if it was cancelled
+    private V join(CompletableFuture<V> running) {
+        try {
+            return running.get();
+        } catch (CancellationException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for a shared call");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
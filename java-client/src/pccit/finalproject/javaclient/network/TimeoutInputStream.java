@@ -0,0 +1,114 @@
+package pccit.finalproject.javaclient.network;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits how long one read of a response body may block.
+ * The timeout of an {@link java.net.http.HttpRequest} only covers waiting for the response headers, so a server
+ * that stops in the middle of a body would block its reader forever. When a read blocks for longer than the
+ * timeout, a watchdog closes the stream, which wakes the read up, and the read fails with a
+ * {@link SocketTimeoutException}.
+ */
+final class TimeoutInputStream extends FilterInputStream {
+
+    //one daemon thread closes the stalled streams of every response
+    private static final ScheduledThreadPoolExecutor WATCHDOG = newWatchdog();
+
+    private final long timeoutMillis;
+    private volatile boolean timedOut;
+
+    /**
+     * Constructor
+     * @param in the raw response body
+     * @param timeoutMillis the longest time one read may block
+     */
+    TimeoutInputStream(InputStream in, long timeoutMillis) {
+        super(in);
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    @Override
+    public int read() throws IOException {
+        ScheduledFuture<?> alarm = arm();
+        try {
+            return checked(super.read());
+        } catch (IOException e) {
+            throw timedOut ? timeout(e) : e;
+        } finally {
+            alarm.cancel(false);
+        }
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        ScheduledFuture<?> alarm = arm();
+        try {
+            return checked(super.read(b, off, len));
+        } catch (IOException e) {
+            throw timedOut ? timeout(e) : e;
+        } finally {
+            alarm.cancel(false);
+        }
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        ScheduledFuture<?> alarm = arm();
+        try {
+            return checked(super.skip(n));
+        } catch (IOException e) {
+            throw timedOut ? timeout(e) : e;
+        } finally {
+            alarm.cancel(false);
+        }
+    }
+
+    private ScheduledFuture<?> arm() throws IOException {
+        if (timedOut) {
+            throw timeout(null);
+        }
+        return WATCHDOG.schedule(this::expire, timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void expire() {
+        timedOut = true;
+        try {
+            in.close();
+        } catch (IOException ignored) {
+            // the blocked read fails or ends either way
+        }
+    }
+
+    //a closed body may also end like a complete one; a read that timed out never counts as the end of the body
+    private <N extends Number> N checked(N result) throws IOException {
+        if (timedOut) {
+            throw timeout(null);
+        }
+        return result;
+    }
+
+    private SocketTimeoutException timeout(IOException cause) {
+        SocketTimeoutException timeout = new SocketTimeoutException("No data received for " + timeoutMillis + " ms");
+        if (cause != null) {
+            timeout.initCause(cause);
+        }
+        return timeout;
+    }
+
+    private static ScheduledThreadPoolExecutor newWatchdog() {
+        ScheduledThreadPoolExecutor watchdog = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "http-read-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // the alarms of reads that finished in time are dropped at once instead of piling up until they expire
+        watchdog.setRemoveOnCancelPolicy(true);
+        return watchdog;
+    }
+}
@@ -0,0 +1,319 @@
+package pccit.finalproject.javaclient.search;
+
+import pccit.finalproject.javaclient.model.IdIndex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * An in-memory inverted index for substring search over the text fields of rows.
+ * Every letter and every pair of adjacent letters within a word is a key whose posting list holds the rows
+ * containing it, so a query only looks at the rows that contain all of its letter pairs.
+ * The index is thread safe: rows can be added in the background while the EDT searches.
+ */
+public class InvertedIndex {
+
+    //compact once at least this many rows were removed and they make up half of the ordinals
+    private static final int MIN_COMPACT = 1024;
+
+    //letter or letter pair -> posting list, an open addressing table like IdIndex; a null list marks a free slot
+    private int[] gramKeys = new int[256];
+    private Postings[] gramLists = new Postings[256];
+    private int gramCount;
+
+    //row id -> ordinal, and ordinal -> row id and lower case text
+    private final IdIndex ordinals = new IdIndex();
+    private int[] ids = new int[64];
+    private String[] texts = new String[64];
+    private int size;
+
+    //ordinals of removed rows, they stay in the posting lists and are skipped until the index is compacted
+    private final BitSet removed = new BitSet();
+    private int removedCount;
+
+    /**
+     * Add a row, replacing it if it was already added.
+     * @param id the id of the row
+     * @param fields the text fields of the row, null fields are ignored
+     */
+    public synchronized void add(int id, String... fields) {
+        remove(id);
+
+        StringBuilder joined = new StringBuilder();
+        for (String field : fields) {
+            if (field != null) {
+                joined.append(field).append('\n');
+            }
+        }
+        String text = normalize(joined.toString());
+
+        int ordinal = size++;
+        if (ordinal == ids.length) {
+            ids = Arrays.copyOf(ids, ids.length * 2);
+            texts = Arrays.copyOf(texts, texts.length * 2);
+        }
+        ids[ordinal] = id;
+        texts[ordinal] = text;
+        ordinals.put(id, ordinal);
+
+        for (int gram : grams(text)) {
+            listFor(gram).add(ordinal);
+        }
+    }
+
+    /**
+     * Remove a row.
+     * @param id the id of the row
+     */
+    public synchronized void remove(int id) {
+        int ordinal = ordinals.get(id);
+        if (ordinal < 0) {
+            return;
+        }
+        ordinals.remove(id);
+        removed.set(ordinal);
+        texts[ordinal] = null;
+        removedCount++;
+        if (removedCount >= MIN_COMPACT && removedCount * 2 >= size) {
+            compact();
+        }
+    }
+
+    /**
+     * Find the rows that contain every word of a query, ignoring case.
+     * @param query the query
+     * @return the ids of the matching rows
+     */
+    public synchronized BitSet search(String query) {
+        BitSet result = new BitSet();
+        List<String> terms = new ArrayList<>();
+        for (String term : normalize(query).split("[^\\p{L}\\p{N}]+")) {
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+        if (terms.isEmpty()) {
+            return result;
+        }
+
+        // intersect the posting lists, shortest first
+        List<Postings> lists = new ArrayList<>();
+        for (String term : terms) {
+            for (int gram : queryGrams(term)) {
+                Postings list = list(gram);
+                if (list == null) {
+                    return result;
+                }
+                lists.add(list);
+            }
+        }
+        lists.sort((a, b) -> Integer.compare(a.size, b.size));
+        int[] candidates = Arrays.copyOf(lists.get(0).ordinals, lists.get(0).size);
+        int count = candidates.length;
+        for (int i = 1; i < lists.size() && count > 0; i++) {
+            count = intersect(candidates, count, lists.get(i));
+        }
+
+        // letter pairs may come from different places, so check the candidates for the whole words
+        for (int i = 0; i < count; i++) {
+            int ordinal = candidates[i];
+            if (!removed.get(ordinal) && containsAll(texts[ordinal], terms)) {
+                result.set(ids[ordinal]);
+            }
+        }
+        return result;
+    }
+
+    private static boolean containsAll(String text, List<String> terms) {
+        for (String term : terms) {
+            if (!text.contains(term)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //keep the candidates that are also in the list, both are ascending
+    private static int intersect(int[] candidates, int count, Postings list) {
+        int kept = 0;
+        int from = 0;
+        for (int i = 0; i < count && from < list.size; i++) {
+            int ordinal = candidates[i];
+            // gallop ahead, the candidates are usually far fewer than the list entries
+            int step = 1;
+            int to = from;
+            while (to < list.size && list.ordinals[to] < ordinal) {
+                from = to + 1;
+                to += step;
+                step <<= 1;
+            }
+            int found = Arrays.binarySearch(list.ordinals, from, Math.min(to + 1, list.size), ordinal);
+            if (found >= 0) {
+                candidates[kept++] = ordinal;
+                from = found + 1;
+            } else {
+                from = -found - 1;
+            }
+        }
+        return kept;
+    }
+
+    //drop the removed rows from the posting lists and number the remaining rows from 0 again
+    private void compact() {
+        int[] renumbered = new int[size];
+        int live = 0;
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            if (removed.get(ordinal)) {
+                renumbered[ordinal] = -1;
+                continue;
+            }
+            renumbered[ordinal] = live;
+            ids[live] = ids[ordinal];
+            texts[live] = texts[ordinal];
+            ordinals.put(ids[live], live);
+            live++;
+        }
+        Arrays.fill(texts, live, size, null);
+        size = live;
+        removed.clear();
+        removedCount = 0;
+
+        // the new ordinals keep the order of the old ones, so every list stays ascending
+        int[] oldKeys = gramKeys;
+        Postings[] oldLists = gramLists;
+        gramKeys = new int[oldKeys.length];
+        gramLists = new Postings[oldLists.length];
+        gramCount = 0;
+        for (int slot = 0; slot < oldLists.length; slot++) {
+            Postings list = oldLists[slot];
+            if (list == null) {
+                continue;
+            }
+            int kept = 0;
+            for (int i = 0; i < list.size; i++) {
+                int ordinal = renumbered[list.ordinals[i]];
+                if (ordinal >= 0) {
+                    list.ordinals[kept++] = ordinal;
+                }
+            }
+            list.size = kept;
+            if (kept > 0) {
+                insert(oldKeys[slot], list);
+            }
+        }
+    }
+
+    //the posting list of a letter or letter pair, or null if no row contains it
+    private Postings list(int gram) {
+        int mask = gramKeys.length - 1;
+        for (int slot = slot(gram, mask); gramLists[slot] != null; slot = (slot + 1) & mask) {
+            if (gramKeys[slot] == gram) {
+                return gramLists[slot];
+            }
+        }
+        return null;
+    }
+
+    //the posting list of a letter or letter pair, added if it is new
+    private Postings listFor(int gram) {
+        Postings list = list(gram);
+        if (list == null) {
+            list = new Postings();
+            insert(gram, list);
+        }
+        return list;
+    }
+
+    private void insert(int gram, Postings list) {
+        if ((gramCount + 1) * 2 > gramKeys.length) {
+            int[] oldKeys = gramKeys;
+            Postings[] oldLists = gramLists;
+            gramKeys = new int[oldKeys.length * 2];
+            gramLists = new Postings[oldLists.length * 2];
+            gramCount = 0;
+            for (int slot = 0; slot < oldLists.length; slot++) {
+                if (oldLists[slot] != null) {
+                    insert(oldKeys[slot], oldLists[slot]);
+                }
+            }
+        }
+        int mask = gramKeys.length - 1;
+        int slot = slot(gram, mask);
+        while (gramLists[slot] != null) {
+            slot = (slot + 1) & mask;
+        }
+        gramKeys[slot] = gram;
+        gramLists[slot] = list;
+        gramCount++;
+    }
+
+    //spread the packed letters over the table
+    private static int slot(int gram, int mask) {
+        int h = gram * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    //the letters and pairs of adjacent letters of each word, packed into ints
+    private static int[] grams(String text) {
+        int[] grams = new int[text.length() * 2];
+        int count = 0;
+        char previous = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (!Character.isLetterOrDigit(c)) {
+                previous = 0;
+                continue;
+            }
+            grams[count++] = c << 16;
+            if (previous != 0) {
+                grams[count++] = previous << 16 | c;
+            }
+            previous = c;
+        }
+        return distinct(grams, count);
+    }
+
+    //a single letter is looked up by itself, longer words by their letter pairs
+    private static int[] queryGrams(String term) {
+        if (term.length() == 1) {
+            return new int[]{term.charAt(0) << 16};
+        }
+        int[] grams = new int[term.length() - 1];
+        for (int i = 1; i < term.length(); i++) {
+            grams[i - 1] = term.charAt(i - 1) << 16 | term.charAt(i);
+        }
+        return distinct(grams, grams.length);
+    }
+
+    //sort the grams and drop repeats, a row must be added to each posting list only once
+    private static int[] distinct(int[] grams, int count) {
+        Arrays.sort(grams, 0, count);
+        int kept = 0;
+        for (int i = 0; i < count; i++) {
+            if (kept == 0 || grams[i] != grams[kept - 1]) {
+                grams[kept++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, kept);
+    }
+
+    private static String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+
+    //a growable, ascending list of ordinals
+    private static final class Postings {
+        int[] ordinals = new int[4];
+        int size;
+
+        void add(int ordinal) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+            }
+            ordinals[size++] = ordinal;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package pccit.finalproject.javaclient.sync;
+
+/**
+ * One entry of the change log of the backend: a user, article or comment that was inserted, updated or deleted.
+ */
+public class Change {
+    public static final String USER = "user";
+    public static final String ARTICLE = "article";
+    public static final String COMMENT = "comment";
+
+    public static final String INSERT = "insert";
+    public static final String UPDATE = "update";
+    public static final String DELETE = "delete";
+
+    private long version;
+    private String entity;
+    private int id;
+    private String op;
+
+    public Change() {
+    }
+
+    public Change(long version, String entity, int id, String op) {
+        this.version = version;
+        this.entity = entity;
+        this.id = id;
+        this.op = op;
+    }
+
+    /**
+     * Get the position of the change in the log, it grows with every change.
+     * @return the version
+     */
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+
+    /**
+     * Get the kind of row that changed.
+     * @return {@link #USER}, {@link #ARTICLE} or {@link #COMMENT}
+     */
+    public String getEntity() { return entity; }
+    public void setEntity(String entity) { this.entity = entity; }
+
+    public int getId() { return id; }
+    public void setId(int id) { this.id = id; }
+
+    /**
+     * Get what happened to the row.
+     * @return {@link #INSERT}, {@link #UPDATE} or {@link #DELETE}
+     */
+    public String getOp() { return op; }
+    public void setOp(String op) { this.op = op; }
+}
@@ -0,0 +1,268 @@
+package pccit.finalproject.javaclient.sync;
+
+import pccit.finalproject.javaclient.BlogManagerModel;
+import pccit.finalproject.javaclient.codec.CodecRegistry;
+import pccit.finalproject.javaclient.concurrent.SwingExecutor;
+import pccit.finalproject.javaclient.network.ApiResponse;
+
+import javax.swing.*;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+import static pccit.finalproject.javaclient.config.Config.*;
+
+/**
+ * Subscribes to the live change feed of the backend, a stream of server-sent events, and hands the changes
+ * to the UI in merged batches.
+ * The stream is read on its own thread. When it breaks, it is reopened after a growing delay and resumes
+ * after the last received change, so no change is lost.
+ * Changes are merged per row while the previous batch is still being applied and for a short time after it,
+ * so a burst of changes reaches the EDT as a few batches instead of one task per event.
+ */
+public class ChangeFeed {
+
+    private final BlogManagerModel model;
+    private final Function<ChangeSet, CompletableFuture<?>> applier;
+
+    //the changes received since the last batch was handed out, guarded by itself
+    private ChangeSet pending = new ChangeSet();
+    private final Object lock = new Object();
+
+    //hands out the next batch once the changes of a burst had some time to be merged; EDT only
+    private final Timer flushTimer;
+    private boolean applying;
+
+    //the version the stream resumes after, as last sent by the server; -1 until the stream was first opened
+    private volatile long lastVersion = -1;
+    private volatile boolean running;
+    private volatile ApiResponse stream;
+    private volatile long lastReceived;
+    private Thread reader;
+    private java.util.Timer watchdog;
+
+    /**
+     * Constructor
+     * @param model the model the stream is opened with
+     * @param applier applies a batch of changes on the EDT; the next batch is handed out when its future completes
+     */
+    public ChangeFeed(BlogManagerModel model, Function<ChangeSet, CompletableFuture<?>> applier) {
+        this.model = model;
+        this.applier = applier;
+        this.flushTimer = new Timer(CHANGE_FLUSH_MILLIS, e -> flush());
+        this.flushTimer.setRepeats(false);
+    }
+
+    /**
+     * Open the stream and keep it open until {@link #stop()} is called.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        reader = new Thread(this::run, "change-feed");
+        reader.setDaemon(true);
+        reader.start();
+
+        // a connection that silently died sends no more heartbeats; closing it makes the reader reconnect
+        watchdog = new java.util.Timer("change-feed-watchdog", true);
+        watchdog.schedule(new java.util.TimerTask() {
+            @Override
+            public void run() {
+                ApiResponse current = stream;
+                if (current != null && System.currentTimeMillis() - lastReceived > CHANGE_FEED_STALE_MILLIS) {
+                    closeQuietly(current);
+                }
+            }
+        }, CHANGE_FEED_STALE_MILLIS, CHANGE_FEED_STALE_MILLIS / 3);
+    }
+
+    /**
+     * Close the stream and drop the changes that were not handed out yet.
+     */
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        watchdog.cancel();
+        reader.interrupt();
+        ApiResponse current = stream;
+        if (current != null) {
+            closeQuietly(current);
+        }
+        synchronized (lock) {
+            pending = new ChangeSet();
+        }
+        SwingUtilities.invokeLater(flushTimer::stop);
+    }
+
+    //reconnect until stopped, waiting longer after every failed attempt
+    private void run() {
+        long delay = CHANGE_FEED_RETRY_MILLIS;
+        while (running) {
+            if (lastVersion < 0) {
+                // before the stream sent a version, resume after what the tables were loaded up to
+                lastVersion = model.getHighWaterMark();
+            }
+            try (ApiResponse response = model.openChangeFeed(lastVersion)) {
+                int status = response.getStatusCode();
+                if (status == 401 || status == 403) {
+                    System.out.println("Change feed refused with status " + status);
+                    running = false;
+                    return;
+                }
+                if (status == 200) {
+                    stream = response;
+                    lastReceived = System.currentTimeMillis();
+                    delay = CHANGE_FEED_RETRY_MILLIS;
+                    read(response);
+                }
+            } catch (IOException e) {
+                if (running) {
+                    System.out.println("Change feed disconnected: " + e.getMessage());
+                }
+            } finally {
+                stream = null;
+            }
+
+            try {
+                // the jitter keeps clients that lost the server at the same moment from reconnecting together
+                Thread.sleep(delay + ThreadLocalRandom.current().nextLong(delay / 2 + 1));
+            } catch (InterruptedException e) {
+                return;
+            }
+            delay = Math.min(delay * 2, CHANGE_FEED_MAX_RETRY_MILLIS);
+        }
+    }
+
+    //parse the server-sent events: fields up to an empty line make one event, lines starting with ':' are comments
+    private void read(ApiResponse response) throws IOException {
+        BufferedReader lines = new BufferedReader(new InputStreamReader(response.getBody(), StandardCharsets.UTF_8));
+        String event = null;
+        String id = null;
+        StringBuilder data = new StringBuilder();
+        String line;
+        while (running && (line = lines.readLine()) != null) {
+            lastReceived = System.currentTimeMillis();
+            if (line.isEmpty()) {
+                if ("changes".equals(event) && data.length() > 0) {
+                    received(decode(data.toString()), false, id);
+                } else if ("reset".equals(event)) {
+                    // the server could not resume after the last received change, some changes were lost
+                    received(List.of(), true, id);
+                } else if (id != null) {
+                    // an event without data only moves the resume point, e.g. the one sent on connect
+                    lastVersion = Long.parseLong(id);
+                }
+                event = null;
+                data.setLength(0);
+                continue;
+            }
+            if (line.startsWith(":")) {
+                continue;
+            }
+            int colon = line.indexOf(':');
+            String field = colon < 0 ? line : line.substring(0, colon);
+            String value = colon < 0 ? "" : line.substring(colon + 1);
+            if (value.startsWith(" ")) {
+                value = value.substring(1);
+            }
+            switch (field) {
+                case "event":
+                    event = value;
+                    break;
+                case "data":
+                    if (data.length() > 0) {
+                        data.append('\n');
+                    }
+                    data.append(value);
+                    break;
+                case "id":
+                    id = value;
+                    break;
+                default:
+                    // the retry field is ignored, the reconnect delay grows on its own
+                    break;
+            }
+        }
+    }
+
+    //a batch that cannot be decoded is skipped, reading it again after a reconnect would fail the same way
+    private static List<Change> decode(String data) {
+        try {
+            return CodecRegistry.changes().readValue(data);
+        } catch (IOException e) {
+            System.out.println("Skipped undecodable changes: " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    //merge received changes; only the first change after a handed out batch wakes up the EDT
+    private void received(List<Change> changes, boolean reset, String id) {
+        boolean wake;
+        synchronized (lock) {
+            wake = pending.isEmpty();
+            for (Change change : changes) {
+                pending.add(change);
+            }
+            if (reset) {
+                pending.markReset();
+            }
+            if (id != null) {
+                pending.advanceTo(Long.parseLong(id));
+            }
+        }
+        if (id != null) {
+            lastVersion = Long.parseLong(id);
+        }
+        if (wake && (reset || !changes.isEmpty())) {
+            SwingUtilities.invokeLater(this::schedule);
+        }
+    }
+
+    private void schedule() {
+        if (running && !applying && !flushTimer.isRunning()) {
+            flushTimer.start();
+        }
+    }
+
+    private void flush() {
+        ChangeSet changes;
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            changes = pending;
+            pending = new ChangeSet();
+        }
+        applying = true;
+        // the changes that arrive while this batch is applied are merged into the next one
+        applier.apply(changes).whenCompleteAsync((ignored, error) -> {
+            applying = false;
+            if (error != null && !(error instanceof CancellationException)) {
+                error.printStackTrace();
+            }
+            synchronized (lock) {
+                if (!pending.isEmpty()) {
+                    schedule();
+                }
+            }
+        }, SwingExecutor.INSTANCE);
+    }
+
+    private static void closeQuietly(ApiResponse response) {
+        try {
+            response.close();
+        } catch (IOException ignored) {
+            // the reader notices the closed stream and reconnects
+        }
+    }
+}
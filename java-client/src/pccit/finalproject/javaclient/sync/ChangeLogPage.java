@@ -0,0 +1,38 @@
+package pccit.finalproject.javaclient.sync;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One response of /admin/changes: the changes after a version, merged per row, with deleted rows as tombstones.
+ */
+public class ChangeLogPage {
+    private long version;
+    private boolean reset;
+    private boolean more;
+    private List<Change> changes = new ArrayList<>();
+
+    /**
+     * Get the version the changes are complete up to, the next request continues after it.
+     * @return the version
+     */
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+
+    /**
+     * Whether the log no longer reaches back to the requested version, the client must load everything again.
+     * @return true if changes were lost
+     */
+    public boolean isReset() { return reset; }
+    public void setReset(boolean reset) { this.reset = reset; }
+
+    /**
+     * Whether there are more changes after {@link #getVersion()}.
+     * @return true if another request is needed
+     */
+    public boolean isMore() { return more; }
+    public void setMore(boolean more) { this.more = more; }
+
+    public List<Change> getChanges() { return changes; }
+    public void setChanges(List<Change> changes) { this.changes = changes; }
+}
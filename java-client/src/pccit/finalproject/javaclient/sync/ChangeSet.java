@@ -0,0 +1,111 @@
+package pccit.finalproject.javaclient.sync;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The changes of a number of log entries merged per row, so that a burst of changes to the same rows
+ * is applied once: a row that was changed several times is fetched once, and a deleted row is not fetched at all.
+ */
+public class ChangeSet {
+
+    //the last change of every row by entity and id; an insert stays an insert when the row is updated afterwards
+    private final Map<String, Map<Integer, String>> rows = new HashMap<>();
+    private long version;
+    private int size;
+
+    //whether the server no longer has every change since the last known version, so everything must be reloaded
+    private boolean reset;
+
+    /**
+     * Merge a change into the set.
+     * @param change the change
+     */
+    public void add(Change change) {
+        Map<Integer, String> ops = rows.computeIfAbsent(change.getEntity(), entity -> new LinkedHashMap<>());
+        String previous = ops.get(change.getId());
+        if (previous == null) {
+            size++;
+        }
+        if (!Change.INSERT.equals(previous) || Change.DELETE.equals(change.getOp())) {
+            ops.put(change.getId(), change.getOp());
+        }
+        version = Math.max(version, change.getVersion());
+    }
+
+    /**
+     * Record that the set is complete up to a version, also when no change had that version.
+     * @param version the version
+     */
+    public void advanceTo(long version) {
+        this.version = Math.max(this.version, version);
+    }
+
+    /**
+     * Record that changes were lost, the tables must be loaded again.
+     */
+    public void markReset() {
+        reset = true;
+    }
+
+    public boolean isReset() {
+        return reset;
+    }
+
+    public boolean isEmpty() {
+        return size == 0 && !reset;
+    }
+
+    /**
+     * Get the number of rows that changed.
+     * @return the number of rows
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the version the set is complete up to, the newest merged change unless {@link #advanceTo} was called.
+     * @return the version, 0 for an empty set
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Get the ids of the rows of an entity that were inserted or updated.
+     * @param entity the entity, e.g. {@link Change#USER}
+     * @return the ids, in the order they first changed
+     */
+    public int[] changed(String entity) {
+        return ids(entity, false);
+    }
+
+    /**
+     * Get the ids of the rows of an entity that were deleted.
+     * @param entity the entity, e.g. {@link Change#USER}
+     * @return the ids
+     */
+    public int[] deleted(String entity) {
+        return ids(entity, true);
+    }
+
+    /**
+     * Whether a row was inserted, rather than only updated.
+     * @param entity the entity
+     * @param id the id of the row
+     * @return true if the row is new
+     */
+    public boolean isInserted(String entity, int id) {
+        return Change.INSERT.equals(rows.getOrDefault(entity, Map.of()).get(id));
+    }
+
+    private int[] ids(String entity, boolean deleted) {
+        Map<Integer, String> ops = rows.getOrDefault(entity, Map.of());
+        return ops.entrySet().stream()
+                .filter(entry -> Change.DELETE.equals(entry.getValue()) == deleted)
+                .mapToInt(Map.Entry::getKey)
+                .toArray();
+    }
+}
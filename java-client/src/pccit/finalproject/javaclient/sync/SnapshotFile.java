@@ -0,0 +1,515 @@
+package pccit.finalproject.javaclient.sync;
+
+import pccit.finalproject.javaclient.User;
+import pccit.finalproject.javaclient.model.Article;
+import pccit.finalproject.javaclient.model.ColumnStore;
+import pccit.finalproject.javaclient.model.Comment;
+import pccit.finalproject.javaclient.model.PageWindow;
+import pccit.finalproject.javaclient.model.SiteStats;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+
+import static pccit.finalproject.javaclient.config.Config.SNAPSHOT_BLOCK_ROWS;
+import static pccit.finalproject.javaclient.config.Config.SNAPSHOT_DIR;
+
+/**
+ * The last known users, articles, comments and statistics, kept on disk so that the next login shows them
+ * at once instead of waiting for the downloads.
+ * <p>
+ * The rows of each dataset are stored in blocks of {@link pccit.finalproject.javaclient.config.Config#SNAPSHOT_BLOCK_ROWS}
+ * rows, every block compressed on its own. An index at the end of the file tells where every block starts.
+ * Opening a snapshot maps the file and reads only the index; a block is inflated straight from the mapped
+ * file when it is asked for, so showing the first rows costs the same however large the snapshot is.
+ * <p>
+ * Layout: magic, format, index offset; the blocks; the index with the change log version, the statistics,
+ * the page window of every dataset and per block its dataset, row count, offset, sizes and checksum.
+ * A page window is the cursors of the dropped pages, the cursor and row ids of every kept page and the next cursor.
+ */
+public final class SnapshotFile {
+
+    private static final int MAGIC = 0x424D534E; // "BMSN"
+    private static final int FORMAT = 2;
+    private static final int HEADER_SIZE = 16;
+
+    //the datasets in the order they are stored
+    private static final List<String> DATASETS = List.of(Change.USER, Change.ARTICLE, Change.COMMENT);
+
+    private final MappedByteBuffer buffer;
+    private final long version;
+    private final SiteStats stats;
+    private final Map<String, PageWindow> windows = new HashMap<>();
+    private final Map<String, List<Block>> blocks = new HashMap<>();
+
+    private SnapshotFile(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT) {
+            throw new IOException("Not a snapshot of this format");
+        }
+        long indexOffset = buffer.getLong(8);
+        if (indexOffset < HEADER_SIZE || indexOffset >= buffer.capacity()) {
+            throw new IOException("Damaged snapshot index");
+        }
+
+        DataInputStream index = new DataInputStream(new ByteArrayInputStream(bytes(buffer, (int) indexOffset,
+                buffer.capacity() - (int) indexOffset)));
+        version = index.readLong();
+        stats = new SiteStats();
+        stats.setTotalUsers(index.readInt());
+        stats.setTotalArticles(index.readInt());
+        stats.setTotalComments(index.readInt());
+        stats.setActiveUsers(index.readInt());
+        stats.setBannedUsers(index.readInt());
+        for (String dataset : DATASETS) {
+            windows.put(dataset, readWindow(index));
+            blocks.put(dataset, new ArrayList<>());
+        }
+        int count = index.readInt();
+        for (int i = 0; i < count; i++) {
+            Block block = new Block(index.readByte(), index.readInt(), index.readLong(), index.readInt(),
+                    index.readInt(), index.readInt());
+            if (block.dataset < 0 || block.dataset >= DATASETS.size()
+                    || block.offset < HEADER_SIZE || block.offset + block.length > indexOffset) {
+                throw new IOException("Damaged snapshot index");
+            }
+            blocks.get(DATASETS.get(block.dataset)).add(block);
+        }
+    }
+
+    /**
+     * Get the file the snapshot of a user of a backend is kept in.
+     * @param backendUrl the url of the backend
+     * @param username the logged in user
+     * @return the path
+     */
+    public static Path pathFor(String backendUrl, String username) {
+        String name = UUID.nameUUIDFromBytes((backendUrl + "|" + username).getBytes(StandardCharsets.UTF_8)).toString();
+        return Paths.get(SNAPSHOT_DIR, name + ".snapshot");
+    }
+
+    /**
+     * Map a snapshot file and read its index.
+     * @param file the file
+     * @return the snapshot, or null if there is none
+     * @throws IOException if the file cannot be read or is damaged
+     */
+    public static SnapshotFile open(Path file) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // the mapping stays valid after the channel is closed
+            return new SnapshotFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Write a snapshot. It is written to a temporary file first, so a crash never leaves half a snapshot behind.
+     * @param file the file
+     * @param contents the rows and statistics to keep
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Path file, Contents contents) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path temp = Files.createTempFile(file.getParent(), "snapshot", ".tmp");
+        try {
+            restrictToOwner(temp);
+            List<Block> written = new ArrayList<>();
+            long indexOffset;
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                channel.position(HEADER_SIZE);
+                writeBlocks(channel, 0, contents.users, SnapshotFile::writeUser, written);
+                writeBlocks(channel, 1, contents.articles, SnapshotFile::writeArticle, written);
+                writeBlocks(channel, 2, contents.comments, SnapshotFile::writeComment, written);
+                indexOffset = channel.position();
+
+                ByteArrayOutputStream indexBytes = new ByteArrayOutputStream();
+                DataOutputStream index = new DataOutputStream(indexBytes);
+                index.writeLong(contents.version);
+                SiteStats stats = contents.stats != null ? contents.stats : new SiteStats();
+                index.writeInt(stats.getTotalUsers());
+                index.writeInt(stats.getTotalArticles());
+                index.writeInt(stats.getTotalComments());
+                index.writeInt(stats.getActiveUsers());
+                index.writeInt(stats.getBannedUsers());
+                for (String dataset : DATASETS) {
+                    writeWindow(index, contents.windows.get(dataset));
+                }
+                index.writeInt(written.size());
+                for (Block block : written) {
+                    index.writeByte(block.dataset);
+                    index.writeInt(block.rows);
+                    index.writeLong(block.offset);
+                    index.writeInt(block.length);
+                    index.writeInt(block.rawLength);
+                    index.writeInt(block.checksum);
+                }
+                index.flush();
+                writeFully(channel, ByteBuffer.wrap(indexBytes.toByteArray()));
+
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC).putInt(FORMAT).putLong(indexOffset).flip();
+                channel.position(0);
+                writeFully(channel, header);
+                channel.force(false);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Get the version of the change log the rows were current up to when the snapshot was written.
+     * @return the version
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public SiteStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Get the pages of a dataset whose rows are in the snapshot.
+     * @param dataset the dataset, e.g. {@link Change#USER}
+     * @return the page window
+     */
+    public PageWindow getWindow(String dataset) {
+        return windows.get(dataset);
+    }
+
+    /**
+     * Get the number of blocks of a dataset.
+     * @param dataset the dataset
+     * @return the number of blocks
+     */
+    public int blockCount(String dataset) {
+        return blocks.get(dataset).size();
+    }
+
+    public List<User> readUsers(int block) throws IOException {
+        return readBlock(Change.USER, block, SnapshotFile::readUser);
+    }
+
+    public List<Article> readArticles(int block) throws IOException {
+        return readBlock(Change.ARTICLE, block, SnapshotFile::readArticle);
+    }
+
+    public List<Comment> readComments(int block) throws IOException {
+        return readBlock(Change.COMMENT, block, SnapshotFile::readComment);
+    }
+
+    //inflate a block straight from the mapped file
+    private <T> List<T> readBlock(String dataset, int index, RowReader<T> reader) throws IOException {
+        Block block = blocks.get(dataset).get(index);
+        byte[] raw = new byte[block.rawLength];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(buffer.slice((int) block.offset, block.length));
+            int read = 0;
+            while (read < raw.length && !inflater.finished()) {
+                int count = inflater.inflate(raw, read, raw.length - read);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                read += count;
+            }
+            if (read != raw.length) {
+                throw new IOException("Damaged snapshot block");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Damaged snapshot block", e);
+        } finally {
+            inflater.end();
+        }
+        CRC32 crc = new CRC32();
+        crc.update(raw);
+        if ((int) crc.getValue() != block.checksum) {
+            throw new IOException("Damaged snapshot block");
+        }
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(raw));
+        List<T> rows = new ArrayList<>(block.rows);
+        for (int i = 0; i < block.rows; i++) {
+            rows.add(reader.read(in));
+        }
+        return rows;
+    }
+
+    private static <T> void writeBlocks(FileChannel channel, int dataset, List<T> rows, RowWriter<T> writer,
+                                        List<Block> written) throws IOException {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            for (int from = 0; from < rows.size(); from += SNAPSHOT_BLOCK_ROWS) {
+                int to = Math.min(from + SNAPSHOT_BLOCK_ROWS, rows.size());
+                ByteArrayOutputStream rawBytes = new ByteArrayOutputStream();
+                DataOutputStream raw = new DataOutputStream(rawBytes);
+                for (int i = from; i < to; i++) {
+                    writer.write(raw, rows.get(i));
+                }
+                raw.flush();
+                byte[] data = rawBytes.toByteArray();
+                CRC32 crc = new CRC32();
+                crc.update(data);
+
+                deflater.reset();
+                ByteArrayOutputStream compressed = new ByteArrayOutputStream(data.length / 3 + 64);
+                try (DeflaterOutputStream out = new DeflaterOutputStream(compressed, deflater)) {
+                    out.write(data);
+                }
+                long offset = channel.position();
+                writeFully(channel, ByteBuffer.wrap(compressed.toByteArray()));
+                written.add(new Block((byte) dataset, to - from, offset, compressed.size(), data.length, (int) crc.getValue()));
+            }
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer data) throws IOException {
+        while (data.hasRemaining()) {
+            channel.write(data);
+        }
+    }
+
+    //the snapshot holds admin data, nobody else on the machine needs to read it
+    private static void restrictToOwner(Path file) throws IOException {
+        try {
+            Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-------"));
+        } catch (UnsupportedOperationException e) {
+            // not a POSIX file system, the temporary file is private to the user there already
+        }
+    }
+
+    private static byte[] bytes(ByteBuffer buffer, int offset, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(offset, bytes);
+        return bytes;
+    }
+
+    private static void writeUser(DataOutputStream out, User user) throws IOException {
+        out.writeInt(user.getId());
+        writeString(out, user.getUsername());
+        writeString(out, user.getRealName());
+        out.writeInt(user.getDateOfBirth() == null ? ColumnStore.Dates.NONE : (int) user.getDateOfBirth().toEpochDay());
+        writeString(out, user.getBio());
+        writeString(out, user.getAvatarUrl());
+        out.writeLong(user.getCreatedAtMillis());
+        writeString(out, user.getStatus());
+        out.writeInt(user.getArticleCount());
+        out.writeInt(user.getCommentCount());
+        out.writeBoolean(user.getHasAvatar());
+    }
+
+    private static void writeWindow(DataOutputStream out, PageWindow window) throws IOException {
+        out.writeInt(window.getDroppedCursors().size());
+        for (String cursor : window.getDroppedCursors()) {
+            writeString(out, cursor);
+        }
+        out.writeInt(window.getCursors().size());
+        for (int i = 0; i < window.getCursors().size(); i++) {
+            writeString(out, window.getCursors().get(i));
+            int[] ids = window.getIds().get(i);
+            out.writeInt(ids.length);
+            for (int id : ids) {
+                out.writeInt(id);
+            }
+        }
+        writeString(out, window.getNextCursor());
+    }
+
+    private static PageWindow readWindow(DataInputStream in) throws IOException {
+        int droppedCount = readCount(in, 4);
+        List<String> dropped = new ArrayList<>(droppedCount);
+        for (int i = 0; i < droppedCount; i++) {
+            dropped.add(readString(in));
+        }
+        int pageCount = readCount(in, 8);
+        List<String> cursors = new ArrayList<>(pageCount);
+        List<int[]> ids = new ArrayList<>(pageCount);
+        for (int i = 0; i < pageCount; i++) {
+            cursors.add(readString(in));
+            int[] pageIds = new int[readCount(in, 4)];
+            for (int j = 0; j < pageIds.length; j++) {
+                pageIds[j] = in.readInt();
+            }
+            ids.add(pageIds);
+        }
+        return new PageWindow(dropped, cursors, ids, readString(in));
+    }
+
+    //read a number of entries, which cannot be more than the index has bytes left for
+    private static int readCount(DataInputStream in, int minimumBytesEach) throws IOException {
+        int count = in.readInt();
+        if (count < 0 || (long) count * minimumBytesEach > in.available()) {
+            throw new IOException("Damaged snapshot index");
+        }
+        return count;
+    }
+
+    private static User readUser(DataInputStream in) throws IOException {
+        int id = in.readInt();
+        String username = readString(in);
+        String realName = readString(in);
+        int dateOfBirth = in.readInt();
+        String bio = readString(in);
+        String avatarUrl = readString(in);
+        long createdAt = in.readLong();
+        String status = readString(in);
+        int articleCount = in.readInt();
+        int commentCount = in.readInt();
+        boolean hasAvatar = in.readBoolean();
+        User user = new User(id, username, realName,
+                dateOfBirth == ColumnStore.Dates.NONE ? null : LocalDate.ofEpochDay(dateOfBirth),
+                bio, avatarUrl, null, status, articleCount, commentCount, hasAvatar);
+        user.setCreatedAtMillis(createdAt);
+        return user;
+    }
+
+    private static void writeArticle(DataOutputStream out, Article article) throws IOException {
+        out.writeInt(article.getId());
+        writeString(out, article.getTitle());
+        writeString(out, article.getContent());
+        writeString(out, article.getAuthorUsername());
+        out.writeInt(article.getAuthorId());
+        out.writeLong(article.getCreatedAtMillis());
+        out.writeInt(article.getCommentCount());
+        out.writeInt(article.getLikeCount());
+        out.writeInt(article.getViewCount());
+        writeString(out, article.getStatus());
+    }
+
+    private static Article readArticle(DataInputStream in) throws IOException {
+        Article article = new Article();
+        article.setId(in.readInt());
+        article.setTitle(readString(in));
+        article.setContent(readString(in));
+        article.setAuthorUsername(readString(in));
+        article.setAuthorId(in.readInt());
+        article.setCreatedAtMillis(in.readLong());
+        article.setCommentCount(in.readInt());
+        article.setLikeCount(in.readInt());
+        article.setViewCount(in.readInt());
+        article.setStatus(readString(in));
+        return article;
+    }
+
+    private static void writeComment(DataOutputStream out, Comment comment) throws IOException {
+        out.writeInt(comment.getId());
+        writeString(out, comment.getContent());
+        out.writeInt(comment.getArticleId());
+        writeString(out, comment.getArticleTitle());
+        out.writeInt(comment.getAuthorId());
+        writeString(out, comment.getAuthorUsername());
+        out.writeLong(comment.getCreatedAtMillis());
+        writeString(out, comment.getStatus());
+        out.writeInt(comment.getLikeCount());
+    }
+
+    private static Comment readComment(DataInputStream in) throws IOException {
+        Comment comment = new Comment();
+        comment.setId(in.readInt());
+        comment.setContent(readString(in));
+        comment.setArticleId(in.readInt());
+        comment.setArticleTitle(readString(in));
+        comment.setAuthorId(in.readInt());
+        comment.setAuthorUsername(readString(in));
+        comment.setCreatedAtMillis(in.readLong());
+        comment.setStatus(readString(in));
+        comment.setLikeCount(in.readInt());
+        return comment;
+    }
+
+    //strings as a UTF-8 length and bytes, -1 for null; writeUTF would limit them to 64 KB
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private interface RowWriter<T> {
+        void write(DataOutputStream out, T row) throws IOException;
+    }
+
+    private interface RowReader<T> {
+        T read(DataInputStream in) throws IOException;
+    }
+
+    private static final class Block {
+        private final byte dataset;
+        private final int rows;
+        private final long offset;
+        private final int length;
+        private final int rawLength;
+        private final int checksum;
+
+        private Block(byte dataset, int rows, long offset, int length, int rawLength, int checksum) {
+            this.dataset = dataset;
+            this.rows = rows;
+            this.offset = offset;
+            this.length = length;
+            this.rawLength = rawLength;
+            this.checksum = checksum;
+        }
+    }
+
+    /**
+     * What a snapshot keeps: the rows of every table in load order, the statistics, the next page cursors
+     * and the version of the change log the rows are current up to.
+     */
+    public static final class Contents {
+        private final long version;
+        private final SiteStats stats;
+        private final List<User> users;
+        private final List<Article> articles;
+        private final List<Comment> comments;
+        private final Map<String, PageWindow> windows;
+
+        /**
+         * Constructor
+         * @param version the high-water mark of the rows
+         * @param stats the statistics, or null
+         * @param users the users
+         * @param articles the articles
+         * @param comments the comments
+         * @param windows the page window of every dataset
+         */
+        public Contents(long version, SiteStats stats, List<User> users, List<Article> articles, List<Comment> comments,
+                        Map<String, PageWindow> windows) {
+            this.version = version;
+            this.stats = stats;
+            this.users = users;
+            this.articles = articles;
+            this.comments = comments;
+            this.windows = windows;
+        }
+    }
+}